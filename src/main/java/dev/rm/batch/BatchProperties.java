@@ -0,0 +1,26 @@
+package dev.rm.batch;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import dev.rm.exception.BatchTooLargeException;
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "bff.batch")
+public class BatchProperties {
+
+    private int maxItems = 1000;
+
+    // Items of one bulk request in flight upstream at the same time
+    private int concurrency = 8;
+
+    // Whether createUsersFunction accepts a list of users in one request
+    private boolean upstreamCreateUsers = false;
+    private int upstreamChunkSize = 100;
+
+    public void check(int size) {
+        if (size > maxItems) {
+            throw new BatchTooLargeException(size, maxItems);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package dev.rm.batch;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import dev.rm.model.BatchResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs one single-item call per input of a bulk request, at most
+ * {@code concurrency} at a time. {@link #fanOut} emits each outcome as soon
+ * as it completes and turns a failed item into an {@code ERROR} result
+ * instead of failing the whole batch.
+ */
+public final class Batches {
+
+    private Batches() {
+    }
+
+    public static <I, O> Flux<BatchResult<O>> fanOut(List<I> inputs, int concurrency,
+            Function<I, Object> idOf, Function<I, Mono<O>> call) {
+        return Flux.range(0, inputs.size())
+                .flatMap(index -> {
+                    I input = inputs.get(index);
+                    Object id = idOf.apply(input);
+                    return Mono.defer(() -> call.apply(input))
+                            .map(item -> BatchResult.success(index, id, item))
+                            .defaultIfEmpty(BatchResult.success(index, id, null))
+                            .onErrorResume(e -> Mono.just(BatchResult.failure(index, id, e.getMessage())));
+                }, concurrency);
+    }
+
+    /**
+     * Looks up each distinct key once, from {@code cached} when it has the
+     * value and otherwise through {@code fetch}, and emits the values in the
+     * order the keys were first requested. Keys without a value are skipped.
+     */
+    public static <K, V> Flux<V> multiGet(List<K> keys, int concurrency, Function<K, Optional<V>> cached,
+            Function<K, Mono<V>> fetch) {
+        return Flux.fromIterable(new LinkedHashSet<>(keys))
+                .flatMapSequential(key -> cached.apply(key)
+                        .map(Mono::just)
+                        .orElseGet(() -> Mono.defer(() -> fetch.apply(key))), concurrency);
+    }
+}
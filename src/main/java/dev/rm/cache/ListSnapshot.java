@@ -0,0 +1,200 @@
+package dev.rm.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory copy of a full upstream list, kept in key order and served
+ * without waiting for upstream as long as it is younger than
+ * {@code maxStaleness}. The owner calls {@link #refresh()} on a schedule.
+ * Reads keep getting the current copy while a refresh runs, and concurrent
+ * loads share one upstream call. Successful writes are applied in place to
+ * the copy, and to the optional {@link SnapshotIndex}, through
+ * {@link #upsert} and {@link #remove}, at the cost of one sorted-map update.
+ * Writes made while a load is in flight are replayed onto its result, so a
+ * refresh never brings back a value that was just written.
+ */
+@Slf4j
+public class ListSnapshot<K extends Comparable<? super K>, T> {
+
+    private final String name;
+    private final Supplier<Flux<T>> loader;
+    private final Function<T, K> keyOf;
+    private final Duration maxStaleness;
+    private final RequestCoalescer requestCoalescer;
+    private final SnapshotIndex<T> index;
+
+    // Writers hold the lock, readers only read current
+    private final Object lock = new Object();
+    private volatile Snapshot<K, T> current;
+    private long writes;
+    private Instant invalidatedAt = Instant.MIN;
+    private final Queue<Delta<K, T>> recentDeltas = new ArrayDeque<>();
+
+    public ListSnapshot(String name, Supplier<Flux<T>> loader, Function<T, K> keyOf, Duration maxStaleness,
+            RequestCoalescer requestCoalescer) {
+        this(name, loader, keyOf, maxStaleness, requestCoalescer, null);
+    }
+
+    public ListSnapshot(String name, Supplier<Flux<T>> loader, Function<T, K> keyOf, Duration maxStaleness,
+            RequestCoalescer requestCoalescer, SnapshotIndex<T> index) {
+        this.name = name;
+        this.loader = loader;
+        this.keyOf = keyOf;
+        this.maxStaleness = maxStaleness;
+        this.requestCoalescer = requestCoalescer;
+        this.index = index;
+    }
+
+    /**
+     * Items by key. The map is a read-only view that later writes update in
+     * place; a refresh swaps in a new one.
+     */
+    public Mono<NavigableMap<K, T>> get() {
+        return Mono.defer(() -> {
+            Snapshot<K, T> snapshot = current;
+            if (isFresh(snapshot)) {
+                return Mono.just(snapshot.view());
+            }
+            return load();
+        });
+    }
+
+    // Whether get() would answer without going upstream
+    public boolean isFresh() {
+        return isFresh(current);
+    }
+
+    private boolean isFresh(Snapshot<K, T> snapshot) {
+        return snapshot != null && snapshot.loadedAt().plus(maxStaleness).isAfter(Instant.now());
+    }
+
+    /**
+     * Reloads in the background. Does nothing until the snapshot has been
+     * read once, so unused snapshots cost no upstream calls.
+     */
+    public void refresh() {
+        if (current == null) {
+            return;
+        }
+        load().subscribe(
+                items -> log.debug("Refreshed {} snapshot with {} items", name, items.size()),
+                e -> log.warn("Failed to refresh {} snapshot: {}", name, e.getMessage()));
+    }
+
+    /**
+     * Makes the next read wait for a new load, for when upstream changed
+     * items behind this copy's back. A load already in flight may have read
+     * them before the change, so its result is kept but not counted as fresh.
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            invalidatedAt = Instant.now();
+            Snapshot<K, T> snapshot = current;
+            if (snapshot != null) {
+                current = new Snapshot<>(snapshot.items(), snapshot.view(), Instant.MIN);
+            }
+        }
+    }
+
+    public void upsert(T item) {
+        K key = keyOf.apply(item);
+        if (key != null) {
+            apply(key, item);
+        }
+    }
+
+    public void remove(K key) {
+        apply(key, null);
+    }
+
+    private void apply(K key, T item) {
+        synchronized (lock) {
+            Snapshot<K, T> snapshot = current;
+            // Nothing to keep consistent, and no scheduled load would ever prune the delta
+            if (snapshot == null) {
+                return;
+            }
+            Delta<K, T> delta = new Delta<>(++writes, key, item);
+            recentDeltas.add(delta);
+            applyDelta(snapshot.items(), delta);
+            if (index != null) {
+                if (item == null) {
+                    index.remove(key);
+                } else {
+                    index.put(item);
+                }
+            }
+        }
+    }
+
+    private Mono<NavigableMap<K, T>> load() {
+        return requestCoalescer.coalesce("snapshot", name, () -> Mono.defer(() -> {
+            long writesBefore;
+            synchronized (lock) {
+                writesBefore = writes;
+            }
+            Instant startedAt = Instant.now();
+            return loader.get()
+                    .collectList()
+                    .map(items -> {
+                        ConcurrentNavigableMap<K, T> loaded = byKey(items);
+                        synchronized (lock) {
+                            // Writes before the load are already upstream, later ones may not be
+                            recentDeltas.removeIf(delta -> delta.sequence() <= writesBefore);
+                            for (Delta<K, T> delta : recentDeltas) {
+                                applyDelta(loaded, delta);
+                            }
+                            Snapshot<K, T> snapshot = new Snapshot<>(loaded,
+                                    Collections.unmodifiableNavigableMap(loaded),
+                                    startedAt.isBefore(invalidatedAt) ? Instant.MIN : startedAt);
+                            if (index != null) {
+                                index.rebuild(loaded.values());
+                            }
+                            current = snapshot;
+                            return snapshot.view();
+                        }
+                    });
+        }));
+    }
+
+    private ConcurrentNavigableMap<K, T> byKey(List<T> items) {
+        ConcurrentNavigableMap<K, T> byKey = new ConcurrentSkipListMap<>();
+        for (T item : items) {
+            K key = keyOf.apply(item);
+            if (key != null) {
+                byKey.put(key, item);
+            }
+        }
+        return byKey;
+    }
+
+    private static <K, T> void applyDelta(ConcurrentNavigableMap<K, T> items, Delta<K, T> delta) {
+        if (delta.item() == null) {
+            items.remove(delta.key());
+        } else {
+            items.put(delta.key(), delta.item());
+        }
+    }
+
+    private record Snapshot<K, T>(ConcurrentNavigableMap<K, T> items, NavigableMap<K, T> view,
+            Instant loadedAt) {
+    }
+
+    // A null item removes the key
+    private record Delta<K, T>(long sequence, K key, T item) {
+    }
+}
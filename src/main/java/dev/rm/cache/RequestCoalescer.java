@@ -0,0 +1,74 @@
+package dev.rm.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Shares one in-flight upstream call between concurrent callers asking for
+ * the same key. The entry is released as soon as the call terminates, so
+ * nothing is cached beyond the lifetime of the request.
+ */
+@Slf4j
+@Component
+public class RequestCoalescer {
+
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> requestCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("bff.coalescer.in-flight", inFlight, Map::size)
+                .description("Upstream calls currently shared by concurrent callers")
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(String operation, Object key, Supplier<Mono<T>> upstream) {
+        String inFlightKey = operation + ":" + key;
+        return Mono.defer(() -> {
+            boolean[] created = { false };
+            Mono<T> shared = (Mono<T>) inFlight.computeIfAbsent(inFlightKey, k -> {
+                created[0] = true;
+                return share(k, upstream.get());
+            });
+            requestCounter(operation, created[0]).increment();
+            if (!created[0]) {
+                log.debug("Joining in-flight {} call for {}", operation, key);
+            }
+            return shared;
+        });
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    // share() reconnects when subscribed after termination, so only release this call's own entry
+    private <T> Mono<T> share(String inFlightKey, Mono<T> call) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        Mono<T> shared = call
+                .doFinally(signal -> inFlight.remove(inFlightKey, self.get()))
+                .share();
+        self.set(shared);
+        return shared;
+    }
+
+    private Counter requestCounter(String operation, boolean leader) {
+        String result = leader ? "leader" : "joined";
+        return requestCounters.computeIfAbsent(operation + ":" + result, k -> Counter.builder("bff.coalescer.requests")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry));
+    }
+}
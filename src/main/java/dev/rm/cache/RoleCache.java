@@ -0,0 +1,115 @@
+package dev.rm.cache;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import dev.rm.model.Role;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-through cache for roles shared by the REST and GraphQL role services.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics
+ * under the {@code roles} and {@code roleLists} cache names.
+ */
+@Slf4j
+@Component
+public class RoleCache {
+
+    private static final String ALL_ROLES_KEY = "all";
+    private static final Comparator<Role> BY_ID = Comparator.comparing(Role::getRoleId,
+            Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Cache<Long, Role> roles;
+    private final Cache<String, List<Role>> roleLists;
+
+    public RoleCache(
+            @Value("${bff.cache.roles.max-size:1000}") long maxSize,
+            @Value("${bff.cache.roles.ttl:10m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.roles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.roleLists = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, roles, "roles");
+        CaffeineCacheMetrics.monitor(meterRegistry, roleLists, "roleLists");
+    }
+
+    public Mono<Role> get(Long roleId, Function<Long, Mono<Role>> loader) {
+        return Mono.defer(() -> {
+            Role cached = roles.getIfPresent(roleId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return loader.apply(roleId)
+                    .doOnNext(role -> roles.put(roleId, role));
+        });
+    }
+
+    public Flux<Role> getAll(Supplier<Flux<Role>> loader) {
+        return Flux.defer(() -> {
+            List<Role> cached = roleLists.getIfPresent(ALL_ROLES_KEY);
+            if (cached != null) {
+                return Flux.fromIterable(cached);
+            }
+            return loader.get()
+                    .collectList()
+                    .map(this::putAll)
+                    .flatMapIterable(list -> list);
+        });
+    }
+
+    /**
+     * Serves the cached list when present, otherwise passes the upstream
+     * stream through without collecting it into the cache.
+     */
+    public Flux<Role> stream(Supplier<Flux<Role>> loader) {
+        return Flux.defer(() -> {
+            List<Role> cached = roleLists.getIfPresent(ALL_ROLES_KEY);
+            return cached != null ? Flux.fromIterable(cached) : loader.get();
+        });
+    }
+
+    public void put(Role role) {
+        if (role == null || role.getRoleId() == null) {
+            return;
+        }
+        roles.put(role.getRoleId(), role);
+        roleLists.invalidateAll();
+    }
+
+    public void evict(Long roleId) {
+        log.debug("Evicting role {} from cache", roleId);
+        roles.invalidate(roleId);
+        roleLists.invalidateAll();
+    }
+
+    // Kept in roleId order so pages can resume after a role id
+    private List<Role> putAll(List<Role> list) {
+        List<Role> sorted = list.stream().sorted(BY_ID).toList();
+        roleLists.put(ALL_ROLES_KEY, sorted);
+        sorted.stream()
+                .filter(role -> role.getRoleId() != null)
+                .forEach(role -> roles.put(role.getRoleId(), role));
+        return sorted;
+    }
+}
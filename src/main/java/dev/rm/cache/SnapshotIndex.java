@@ -0,0 +1,17 @@
+package dev.rm.cache;
+
+import java.util.Collection;
+
+/**
+ * Secondary lookup structure kept in step with a {@link ListSnapshot}. The
+ * snapshot calls these methods one at a time, in the same order as the
+ * changes it applies to its own copy; readers may query concurrently.
+ */
+public interface SnapshotIndex<T> {
+
+    void rebuild(Collection<T> items);
+
+    void put(T item);
+
+    void remove(Object key);
+}
@@ -0,0 +1,138 @@
+package dev.rm.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import dev.rm.model.User;
+
+/**
+ * Lookups over a user snapshot by email, by role and by username prefix.
+ * Emails and usernames are matched case-insensitively. Prefix search walks
+ * a sorted map from the first match, so its cost depends on the number of
+ * results rather than the number of users.
+ */
+public class UserIndex implements SnapshotIndex<User> {
+
+    private volatile Indexes indexes = new Indexes();
+
+    public Optional<User> byId(UUID userId) {
+        return userId == null ? Optional.empty() : Optional.ofNullable(indexes.byId.get(userId));
+    }
+
+    public Optional<User> byEmail(String email) {
+        return email == null ? Optional.empty() : Optional.ofNullable(indexes.byEmail.get(normalize(email)));
+    }
+
+    public List<User> byRole(Long roleId) {
+        Map<UUID, User> users = roleId == null ? null : indexes.byRole.get(roleId);
+        return users == null ? List.of() : List.copyOf(users.values());
+    }
+
+    public List<User> byUsernamePrefix(String prefix, int limit) {
+        String from = normalize(prefix);
+        List<User> matches = new ArrayList<>(Math.min(limit, 64));
+        for (Map.Entry<String, Map<UUID, User>> entry : indexes.byUsername.tailMap(from, true).entrySet()) {
+            if (!entry.getKey().startsWith(from)) {
+                break;
+            }
+            for (User user : entry.getValue().values()) {
+                if (matches.size() == limit) {
+                    return matches;
+                }
+                matches.add(user);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public void rebuild(Collection<User> users) {
+        Indexes rebuilt = new Indexes();
+        users.forEach(rebuilt::add);
+        indexes = rebuilt;
+    }
+
+    @Override
+    public void put(User user) {
+        Indexes current = indexes;
+        User previous = current.byId.put(user.getUserId(), user);
+        if (previous != null) {
+            current.removeSecondary(previous);
+        }
+        current.addSecondary(user);
+    }
+
+    @Override
+    public void remove(Object userId) {
+        Indexes current = indexes;
+        User previous = current.byId.remove(userId);
+        if (previous != null) {
+            current.removeSecondary(previous);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Long roleIdOf(User user) {
+        return user.getRole() != null ? user.getRole().getRoleId() : null;
+    }
+
+    private static final class Indexes {
+
+        private final Map<UUID, User> byId = new ConcurrentHashMap<>();
+        private final Map<String, User> byEmail = new ConcurrentHashMap<>();
+        private final Map<Long, Map<UUID, User>> byRole = new ConcurrentHashMap<>();
+        private final NavigableMap<String, Map<UUID, User>> byUsername = new ConcurrentSkipListMap<>();
+
+        void add(User user) {
+            if (user.getUserId() != null) {
+                byId.put(user.getUserId(), user);
+                addSecondary(user);
+            }
+        }
+
+        void addSecondary(User user) {
+            if (user.getEmail() != null) {
+                byEmail.put(normalize(user.getEmail()), user);
+            }
+            Long roleId = roleIdOf(user);
+            if (roleId != null) {
+                byRole.computeIfAbsent(roleId, id -> new ConcurrentSkipListMap<>()).put(user.getUserId(), user);
+            }
+            if (user.getUsername() != null) {
+                byUsername.computeIfAbsent(normalize(user.getUsername()), name -> new ConcurrentSkipListMap<>())
+                        .put(user.getUserId(), user);
+            }
+        }
+
+        void removeSecondary(User user) {
+            if (user.getEmail() != null) {
+                byEmail.remove(normalize(user.getEmail()), user);
+            }
+            Long roleId = roleIdOf(user);
+            if (roleId != null) {
+                removeFrom(byRole, roleId, user.getUserId());
+            }
+            if (user.getUsername() != null) {
+                removeFrom(byUsername, normalize(user.getUsername()), user.getUserId());
+            }
+        }
+
+        private static <K> void removeFrom(Map<K, Map<UUID, User>> index, K key, UUID userId) {
+            index.computeIfPresent(key, (k, users) -> {
+                users.remove(userId);
+                return users.isEmpty() ? null : users;
+            });
+        }
+    }
+}
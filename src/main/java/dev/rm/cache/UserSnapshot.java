@@ -0,0 +1,82 @@
+package dev.rm.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import dev.rm.graphql.UpstreamGraphQLClient;
+import dev.rm.model.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The user list snapshot and its {@link UserIndex}, shared by the REST and
+ * GraphQL user services so both read one copy, loaded from
+ * getAllUsersFunctionGraphQL on one schedule, and both see each other's
+ * writes.
+ */
+@Component
+public class UserSnapshot {
+
+    private final UserIndex userIndex = new UserIndex();
+    private final ListSnapshot<UUID, User> users;
+
+    public UserSnapshot(UpstreamGraphQLClient upstreamGraphQLClient, RequestCoalescer requestCoalescer,
+            @Value("${bff.cache.users.max-staleness:5m}") Duration maxStaleness) {
+        this.users = new ListSnapshot<>("users",
+                () -> upstreamGraphQLClient.executeList("/getAllUsersFunctionGraphQL", "getAllUsers", Map.of(),
+                        User.class),
+                User::getUserId, maxStaleness, requestCoalescer, userIndex);
+    }
+
+    @Scheduled(initialDelayString = "${bff.cache.users.refresh-interval:30s}",
+            fixedDelayString = "${bff.cache.users.refresh-interval:30s}")
+    public void refresh() {
+        users.refresh();
+    }
+
+    // Users by id, in id order
+    public Mono<NavigableMap<UUID, User>> get() {
+        return users.get();
+    }
+
+    public Flux<User> getAll() {
+        return users.get().flatMapIterable(NavigableMap::values);
+    }
+
+    public Flux<User> byRole(Long roleId) {
+        return users.get().flatMapIterable(loaded -> userIndex.byRole(roleId));
+    }
+
+    public Mono<User> byEmail(String email) {
+        return users.get().flatMap(loaded -> Mono.justOrEmpty(userIndex.byEmail(email)));
+    }
+
+    public Flux<User> byUsernamePrefix(String prefix, int limit) {
+        return users.get().flatMapIterable(loaded -> userIndex.byUsernamePrefix(prefix, limit));
+    }
+
+    // Only while the snapshot is fresh, so callers fall back to upstream otherwise
+    public Optional<User> cached(UUID userId) {
+        return users.isFresh() ? userIndex.byId(userId) : Optional.empty();
+    }
+
+    public void upsert(User user) {
+        users.upsert(user);
+    }
+
+    public void remove(UUID userId) {
+        users.remove(userId);
+    }
+
+    // For writes that change users upstream without telling us which, such as deleting a role
+    public void invalidate() {
+        users.invalidate();
+    }
+}
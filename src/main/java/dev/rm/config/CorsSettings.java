@@ -0,0 +1,26 @@
+package dev.rm.config;
+
+import java.util.Arrays;
+
+import org.springframework.web.cors.CorsConfiguration;
+
+// Shared by the servlet and reactive security configurations
+final class CorsSettings {
+
+    private CorsSettings() {
+    }
+
+    static CorsConfiguration corsConfiguration() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration
+                .setAllowedOrigins(Arrays.asList("http://localhost:4200",
+                        "http://localhost"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT",
+                "DELETE"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization",
+                "Content-Type", "x-requested-with"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization"));
+        configuration.setAllowCredentials(true);
+        return configuration;
+    }
+}
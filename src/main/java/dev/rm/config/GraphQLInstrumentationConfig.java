@@ -0,0 +1,69 @@
+package dev.rm.config;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import dev.rm.graphql.ExecutionMetricsInstrumentation;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.tracing.TracingInstrumentation;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Instrumentation for the Spring GraphQL endpoint, which picks up every
+ * {@code Instrumentation} bean in {@code @Order}. Depth and complexity are
+ * checked before any field is fetched, so an oversized query never reaches
+ * the upstream functions.
+ */
+@Configuration
+public class GraphQLInstrumentationConfig {
+
+    @Bean
+    @Order(0)
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+            @Value("${bff.graphql.limits.max-depth:8}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    /**
+     * Each field costs one plus its selection, and list fields such as
+     * {@code getAllUsers} multiply their selection by {@code list-multiplier}.
+     */
+    @Bean
+    @Order(1)
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${bff.graphql.limits.max-complexity:1000}") int maxComplexity,
+            @Value("${bff.graphql.limits.list-multiplier:10}") int listMultiplier) {
+        FieldComplexityCalculator calculator = (environment, childComplexity) -> GraphQLTypeUtil
+                .isList(GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType()))
+                        ? listMultiplier * (1 + childComplexity)
+                        : 1 + childComplexity;
+        return new MaxQueryComplexityInstrumentation(maxComplexity, calculator);
+    }
+
+    /** Only the operation names in {@code metrics.operation-names} are used as a tag value. */
+    @Bean
+    @Order(2)
+    public ExecutionMetricsInstrumentation executionMetricsInstrumentation(MeterRegistry meterRegistry,
+            @Value("${bff.graphql.metrics.operation-names:}") Set<String> operationNames) {
+        return new ExecutionMetricsInstrumentation(meterRegistry, operationNames);
+    }
+
+    /**
+     * Adds Apollo-style per-field timings under {@code extensions.tracing}
+     * in every response. Meant for diagnosis, not for production traffic.
+     */
+    @Bean
+    @Order(3)
+    @ConditionalOnProperty(name = "bff.graphql.tracing.enabled", havingValue = "true")
+    public TracingInstrumentation tracingInstrumentation() {
+        return new TracingInstrumentation();
+    }
+}
@@ -1,7 +1,8 @@
 package dev.rm.config;
 
-import java.util.Arrays;
+import java.io.IOException;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,22 +10,39 @@ import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.security.web.header.HeaderWriter;
+import org.springframework.security.web.header.HeaderWriterFilter;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.OncePerRequestFilter;
 
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Servlet security. Not compiled into -Dreactive builds, which have no
+ * servlet API; {@link ReactiveSecurityConfig} covers those.
+ */
 @Slf4j
 @Configuration
 @EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        DeferredCacheControlHeaders cacheControlHeaders = new DeferredCacheControlHeaders();
         http
                 .cors(Customizer.withDefaults())
                 .csrf(csrf -> csrf.disable())
+                .headers(headers -> headers
+                        .cacheControl(cacheControl -> cacheControl.disable())
+                        .addHeaderWriter(cacheControlHeaders))
+                .addFilterAfter(cacheControlHeaders, HeaderWriterFilter.class)
                 .authorizeHttpRequests(auth -> auth
                         .anyRequest().permitAll());
 
@@ -33,19 +51,46 @@ public class SecurityConfig {
 
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
-        CorsConfiguration configuration = new CorsConfiguration();
-        configuration
-                .setAllowedOrigins(Arrays.asList("http://localhost:4200",
-                        "http://localhost"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT",
-                "DELETE"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization",
-                "Content-Type", "x-requested-with"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization"));
-        configuration.setAllowCredentials(true);
-
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-        source.registerCorsConfiguration("/**", configuration);
+        source.registerCorsConfiguration("/**", CorsSettings.corsConfiguration());
         return source;
     }
-}
\ No newline at end of file
+
+    /**
+     * Spring Security's no-store default, for responses that do not set their
+     * own Cache-Control. Security writes it as the first dispatch returns,
+     * which for an async request is before the handler has answered, so the
+     * handler's header would be sent next to it. For those requests it is
+     * written when the async dispatch commits the response, or, if that sends
+     * no body, when the async dispatch returns. Streams commit outside any
+     * dispatch, so they set their own.
+     */
+    static class DeferredCacheControlHeaders extends OncePerRequestFilter implements HeaderWriter {
+
+        private final HeaderWriter delegate = new CacheControlHeadersWriter();
+
+        @Override
+        public void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
+            if (!request.isAsyncStarted()) {
+                delegate.writeHeaders(request, response);
+            }
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                if (isAsyncDispatch(request) && !response.isCommitted()) {
+                    writeHeaders(request, response);
+                }
+            }
+        }
+
+        @Override
+        protected boolean shouldNotFilterAsyncDispatch() {
+            return false;
+        }
+    }
+}
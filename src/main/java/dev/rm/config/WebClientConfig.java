@@ -1,97 +1,154 @@
 package dev.rm.config;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import dev.rm.http.UserJson;
+import dev.rm.metrics.UpstreamMetrics;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
 @Configuration
 public class WebClientConfig {
 
+    private final UpstreamMetrics upstreamMetrics;
+
+    public WebClientConfig(UpstreamMetrics upstreamMetrics) {
+        this.upstreamMetrics = upstreamMetrics;
+    }
+
+    /**
+     * Single connection pool shared by every Azure Function client. Pool
+     * gauges are published under {@code reactor.netty.connection.provider.*}.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider azureFunctionConnectionProvider(
+            @Value("${bff.http.pool.max-connections:200}") int maxConnections,
+            @Value("${bff.http.pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${bff.http.pool.pending-acquire-timeout:5s}") Duration pendingAcquireTimeout,
+            @Value("${bff.http.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${bff.http.pool.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${bff.http.pool.evict-in-background:30s}") Duration evictInBackground) {
+        return ConnectionProvider.builder("azure-functions")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInBackground)
+                .metrics(true)
+                .build();
+    }
+
     @Bean
-    public WebClient baseWebClient(@Value("${azure.function.user.rest.prod.url}") String baseUrl) {
-        return WebClient.builder()
-                .baseUrl(baseUrl)
-                .defaultHeader("Content-Type", "application/json")
+    public ClientHttpConnector azureFunctionConnector(
+            ConnectionProvider azureFunctionConnectionProvider,
+            @Value("${bff.http.http2-enabled:false}") boolean http2Enabled,
+            @Value("${bff.http.keep-alive:true}") boolean keepAlive,
+            @Value("${bff.resilience.connect-timeout:2s}") Duration connectTimeout) {
+        HttpProtocol[] protocols = http2Enabled
+                ? new HttpProtocol[] { HttpProtocol.H2, HttpProtocol.HTTP11 }
+                : new HttpProtocol[] { HttpProtocol.HTTP11 };
+
+        HttpClient httpClient = HttpClient.create(azureFunctionConnectionProvider)
+                .protocol(protocols)
+                .keepAlive(keepAlive)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis());
+
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    @Bean
+    public WebClient baseWebClient(@Value("${azure.function.user.rest.prod.url}") String baseUrl,
+            ClientHttpConnector azureFunctionConnector) {
+        return azureFunctionClient(baseUrl, azureFunctionConnector)
                 .defaultHeader("Accept", "application/json")
                 .build();
     }
 
     @Bean
-    public WebClient graphqlWebClient(@Value("${azure.function.user.graphql.prod.url}") String graphqlUrl) {
-        return WebClient.builder()
-                .baseUrl(graphqlUrl)
-                .defaultHeader("Content-Type", "application/json")
+    public WebClient graphqlWebClient(@Value("${azure.function.user.graphql.prod.url}") String graphqlUrl,
+            ClientHttpConnector azureFunctionConnector) {
+        return azureFunctionClient(graphqlUrl, azureFunctionConnector)
                 .build();
     }
 
     @Bean
-    public WebClient createUserWebClient(@Value("${azure.function.user.rest.prod.create}") String createUserUrl) {
-        return WebClient.builder()
-                .baseUrl(createUserUrl)
-                .defaultHeader("Content-Type", "application/json")
+    public WebClient createUserWebClient(@Value("${azure.function.user.rest.prod.create}") String createUserUrl,
+            ClientHttpConnector azureFunctionConnector) {
+        return azureFunctionClient(createUserUrl, azureFunctionConnector)
                 .defaultHeader("Accept", "application/json")
                 .build();
     }
 
     @Bean
-    public WebClient getUserWebClient(@Value("${azure.function.user.rest.prod.get}") String getUserUrl) {
-        return WebClient.builder()
-                .baseUrl(getUserUrl)
-                .defaultHeader("Content-Type", "application/json")
+    public WebClient getUserWebClient(@Value("${azure.function.user.rest.prod.get}") String getUserUrl,
+            ClientHttpConnector azureFunctionConnector) {
+        return azureFunctionClient(getUserUrl, azureFunctionConnector)
                 .defaultHeader("Accept", "application/json")
                 .build();
     }
 
     @Bean
-    public WebClient updateUserWebClient(@Value("${azure.function.user.rest.prod.update}") String updateUserUrl) {
-        return WebClient.builder()
-                .baseUrl(updateUserUrl)
-                .defaultHeader("Content-Type", "application/json")
+    public WebClient updateUserWebClient(@Value("${azure.function.user.rest.prod.update}") String updateUserUrl,
+            ClientHttpConnector azureFunctionConnector) {
+        return azureFunctionClient(updateUserUrl, azureFunctionConnector)
                 .defaultHeader("Accept", "application/json")
                 .build();
     }
 
     @Bean
-    public WebClient deleteUserWebClient(@Value("${azure.function.user.rest.prod.delete}") String deleteUserUrl) {
-        return WebClient.builder()
-                .baseUrl(deleteUserUrl)
-                .defaultHeader("Content-Type", "application/json")
+    public WebClient deleteUserWebClient(@Value("${azure.function.user.rest.prod.delete}") String deleteUserUrl,
+            ClientHttpConnector azureFunctionConnector) {
+        return azureFunctionClient(deleteUserUrl, azureFunctionConnector)
                 .defaultHeader("Accept", "application/json")
                 .build();
     }
 
     @Bean
-    public WebClient createRoleWebClient(@Value("${azure.function.role.rest.prod.create}") String createRoleUrl) {
-        return WebClient.builder()
-                .baseUrl(createRoleUrl)
-                .defaultHeader("Content-Type", "application/json")
+    public WebClient createRoleWebClient(@Value("${azure.function.role.rest.prod.create}") String createRoleUrl,
+            ClientHttpConnector azureFunctionConnector) {
+        return azureFunctionClient(createRoleUrl, azureFunctionConnector)
                 .defaultHeader("Accept", "application/json")
                 .build();
     }
 
     @Bean
-    public WebClient getRoleWebClient(@Value("${azure.function.role.rest.prod.get}") String getRoleUrl) {
-        return WebClient.builder()
-                .baseUrl(getRoleUrl)
-                .defaultHeader("Content-Type", "application/json")
+    public WebClient getRoleWebClient(@Value("${azure.function.role.rest.prod.get}") String getRoleUrl,
+            ClientHttpConnector azureFunctionConnector) {
+        return azureFunctionClient(getRoleUrl, azureFunctionConnector)
                 .defaultHeader("Accept", "application/json")
                 .build();
     }
 
     @Bean
-    public WebClient updateRoleWebClient(@Value("${azure.function.role.rest.prod.update}") String updateRoleUrl) {
-        return WebClient.builder()
-                .baseUrl(updateRoleUrl)
-                .defaultHeader("Content-Type", "application/json")
+    public WebClient updateRoleWebClient(@Value("${azure.function.role.rest.prod.update}") String updateRoleUrl,
+            ClientHttpConnector azureFunctionConnector) {
+        return azureFunctionClient(updateRoleUrl, azureFunctionConnector)
                 .defaultHeader("Accept", "application/json")
                 .build();
     }
 
     @Bean
     public ObjectMapper objectMapper() {
-        return new ObjectMapper();
+        return UserJson.register(new ObjectMapper());
+    }
+
+    private WebClient.Builder azureFunctionClient(String baseUrl, ClientHttpConnector connector) {
+        return WebClient.builder()
+                .clientConnector(connector)
+                .baseUrl(baseUrl)
+                .filter(upstreamMetrics)
+                .defaultHeader("Content-Type", "application/json");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package dev.rm.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import dev.rm.model.BatchResult;
+import dev.rm.model.Role;
+import dev.rm.service.RoleService;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+/**
+ * Bulk variants of the role writes at {@code /api/roles:batch}, answered
+ * like {@link UserBatchController}. Each delete result carries the
+ * function's response as its item.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api")
+public class RoleBatchController {
+
+    private final RoleService roleService;
+
+    public RoleBatchController(RoleService roleService) {
+        this.roleService = roleService;
+    }
+
+    @PostMapping(value = "/roles:batch", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<BatchResult<Role>> createRoles(@RequestBody List<Role> roles) {
+        log.atInfo().setMessage("REST request").addKeyValue("operation", "createRoles")
+                .addKeyValue("items", roles.size()).log();
+        return roleService.createRoles(roles);
+    }
+
+    @PutMapping(value = "/roles:batch", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<BatchResult<Role>> updateRoles(@RequestBody List<Role> roles) {
+        log.atInfo().setMessage("REST request").addKeyValue("operation", "updateRoles")
+                .addKeyValue("items", roles.size()).log();
+        return roleService.updateRoles(roles);
+    }
+
+    @DeleteMapping(value = "/roles:batch", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<BatchResult<Map<String, String>>> deleteRoles(@RequestBody List<Long> roleIds) {
+        log.atInfo().setMessage("REST request").addKeyValue("operation", "deleteRoles")
+                .addKeyValue("items", roleIds.size()).log();
+        return roleService.deleteRoles(roleIds);
+    }
+}
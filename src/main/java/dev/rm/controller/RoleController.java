@@ -1,16 +1,22 @@
 package dev.rm.controller;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import dev.rm.http.CacheControlProperties;
+import dev.rm.http.ETags;
+import dev.rm.model.CursorPage;
 import dev.rm.model.Role;
 import dev.rm.service.RoleService;
 
@@ -29,26 +35,43 @@ import reactor.core.publisher.Mono;
 public class RoleController {
 
     private final RoleService roleService;
+    private final CacheControl cacheControl;
 
-    public RoleController(RoleService roleService) {
+    public RoleController(RoleService roleService, CacheControlProperties cacheControl) {
         this.roleService = roleService;
+        this.cacheControl = cacheControl.getRoles().toHttpCacheControl();
     }
 
     @GetMapping
-    public Flux<Role> getRoles() {
-        return roleService.getAllRoles();
+    public Mono<ResponseEntity<List<Role>>> getRoles() {
+        return roleService.getAllRoles()
+                .collectList()
+                .map(roles -> ETags.ok(roles, cacheControl));
+    }
+
+    @GetMapping(produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+    public ResponseEntity<Flux<Role>> streamRoles() {
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(roleService.streamAllRoles());
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<CursorPage<Role>>> getRolesPage(@RequestParam Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return roleService.getRolesPage(cursor, limit)
+                .map(page -> ETags.ok(page, cacheControl));
     }
 
     @GetMapping("/{roleId}")
     public Mono<ResponseEntity<Role>> getRoleById(@PathVariable Long roleId) {
         return roleService.getRole(roleId)
-                .map(ResponseEntity::ok)
+                .map(role -> ETags.ok(role, cacheControl))
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public Mono<ResponseEntity<Role>> createRole(@RequestBody Role role) {
-        log.info("Received create role request for role name: {}", role.getName());
+        log.atInfo().setMessage("REST request").addKeyValue("operation", "createRole")
+                .addKeyValue("name", role.getName()).log();
         return roleService.createRole(role)
                 .map(savedRole -> ResponseEntity
                         .status(HttpStatus.CREATED)
@@ -64,7 +87,8 @@ public class RoleController {
 
     @PutMapping("/{roleId}")
     public Mono<ResponseEntity<Role>> updateRole(@PathVariable Long roleId, @RequestBody Role role) {
-        log.info("Received update role request for roleId: {}", roleId);
+        log.atInfo().setMessage("REST request").addKeyValue("operation", "updateRole")
+                .addKeyValue("roleId", roleId).log();
         return roleService.updateRole(roleId, role)
                 .map(updatedRole -> ResponseEntity.ok(updatedRole))
                 .onErrorResume(e -> {
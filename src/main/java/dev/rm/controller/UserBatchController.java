@@ -0,0 +1,60 @@
+package dev.rm.controller;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import dev.rm.model.BatchResult;
+import dev.rm.model.User;
+import dev.rm.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+/**
+ * Bulk variants of the user writes at {@code /api/users:batch}. Results are
+ * emitted in completion order, one per item and tagged with its index.
+ * With {@code Accept: application/x-ndjson} each result is streamed as soon
+ * as its upstream call finishes.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api")
+public class UserBatchController {
+
+    private final UserService userService;
+
+    public UserBatchController(UserService userService) {
+        this.userService = userService;
+    }
+
+    @PostMapping(value = "/users:batch", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<BatchResult<User>> createUsers(@RequestBody List<User> users) {
+        log.atInfo().setMessage("REST request").addKeyValue("operation", "createUsers")
+                .addKeyValue("items", users.size()).log();
+        return userService.createUsers(users);
+    }
+
+    @PutMapping(value = "/users:batch", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<BatchResult<User>> updateUsers(@RequestBody List<User> users) {
+        log.atInfo().setMessage("REST request").addKeyValue("operation", "updateUsers")
+                .addKeyValue("items", users.size()).log();
+        return userService.updateUsers(users);
+    }
+
+    @DeleteMapping(value = "/users:batch", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<BatchResult<Void>> deleteUsers(@RequestBody List<UUID> userIds) {
+        log.atInfo().setMessage("REST request").addKeyValue("operation", "deleteUsers")
+                .addKeyValue("items", userIds.size()).log();
+        return userService.deleteUsers(userIds);
+    }
+}
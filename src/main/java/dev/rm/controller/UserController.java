@@ -1,21 +1,30 @@
 package dev.rm.controller;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import dev.rm.http.CacheControlProperties;
+import dev.rm.http.ETags;
+import dev.rm.http.UserJson;
+import dev.rm.model.CursorPage;
 import dev.rm.model.User;
 
 import dev.rm.service.UserService;
@@ -29,27 +38,70 @@ import reactor.core.publisher.Mono;
 public class UserController {
 
     private final UserService userService;
+    private final CacheControl cacheControl;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, CacheControlProperties cacheControl) {
         this.userService = userService;
+        this.cacheControl = cacheControl.getUsers().toHttpCacheControl();
     }
 
     @GetMapping
-    public Flux<User> getUsers() {
-        return userService.getAllUsers();
+    public Mono<ResponseEntity<MappingJacksonValue>> getUsers(@RequestParam(required = false) String fields) {
+        Set<String> selected = UserJson.fields(fields);
+        return userService.getAllUsers()
+                .collectList()
+                .map(users -> tagged(users, selected));
+    }
+
+    @GetMapping(produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+    public ResponseEntity<Flux<User>> streamUsers() {
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(userService.streamAllUsers());
+    }
+
+    @GetMapping(params = "ids")
+    public Flux<User> getUsersByIds(@RequestParam List<UUID> ids) {
+        return userService.getUsers(ids);
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<MappingJacksonValue>> getUsersPage(@RequestParam Integer limit,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) String fields) {
+        Set<String> selected = UserJson.fields(fields);
+        return userService.getUsersPage(cursor, limit)
+                .map(page -> tagged(page, selected));
+    }
+
+    @GetMapping(value = "/search", params = "roleId")
+    public Flux<User> getUsersByRole(@RequestParam Long roleId) {
+        return userService.getUsersByRole(roleId);
+    }
+
+    @GetMapping(value = "/search", params = "email")
+    public Mono<ResponseEntity<User>> getUserByEmail(@RequestParam String email) {
+        return userService.getUserByEmail(email)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/search", params = "username")
+    public Flux<User> searchUsersByUsername(@RequestParam String username,
+            @RequestParam(required = false) Integer limit) {
+        return userService.searchUsersByUsername(username, limit);
     }
 
     @GetMapping("/{userId}")
-    public Mono<ResponseEntity<User>> getUserById(@PathVariable UUID userId) {
+    public Mono<ResponseEntity<MappingJacksonValue>> getUserById(@PathVariable UUID userId,
+            @RequestParam(required = false) String fields) {
+        Set<String> selected = UserJson.fields(fields);
         return userService.getUserById(userId)
-                .map(ResponseEntity::ok)
+                .map(user -> tagged(user, selected))
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public Mono<ResponseEntity<Object>> createUser(@RequestBody User user) {
-        log.info("Received create user request for username: {}", user.getUsername());
-        log.info("Received create user: {}", user);
+        log.atInfo().setMessage("REST request").addKeyValue("operation", "createUser")
+                .addKeyValue("username", user.getUsername()).log();
         return userService.createUser(user)
                 .map(savedUser -> ResponseEntity
                         .status(HttpStatus.CREATED)
@@ -82,7 +134,8 @@ public class UserController {
 
     @PutMapping("/{userId}")
     public Mono<ResponseEntity<User>> updateUser(@PathVariable UUID userId, @RequestBody User user) {
-        log.info("Received update user request for userId: {}", userId);
+        log.atInfo().setMessage("REST request").addKeyValue("operation", "updateUser")
+                .addKeyValue("userId", userId).log();
         return userService.updateUser(userId, user)
                 .map(updatedUser -> ResponseEntity.ok(updatedUser))
                 .onErrorResume(e -> {
@@ -102,4 +155,7 @@ public class UserController {
                 });
     }
 
+    private ResponseEntity<MappingJacksonValue> tagged(Object content, Set<String> fields) {
+        return ETags.ok(UserJson.project(content, fields), ETags.of(content, fields), cacheControl);
+    }
 }
@@ -0,0 +1,100 @@
+package dev.rm.events;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import dev.rm.model.ChangeEvent;
+import dev.rm.model.ChangeEvent.Type;
+import dev.rm.model.Role;
+import dev.rm.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Fans user and role writes out to GraphQL subscribers. Publishing never
+ * waits for subscribers: each one gets its own buffer of
+ * {@code bff.subscriptions.buffer-size} events, and a subscriber that falls
+ * further behind loses its oldest events, counted as
+ * {@code bff.subscriptions.dropped}. Only writes made through this instance
+ * are published.
+ * <p>
+ * Writes arrive on many threads at once, so emissions into each sink are
+ * serialized on it. That only costs a hand-off into the subscribers' buffers,
+ * never a wait on a subscriber.
+ */
+@Component
+public class ChangeEvents {
+
+    private final Sinks.Many<ChangeEvent<User>> users = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<ChangeEvent<Role>> roles = Sinks.many().multicast().directBestEffort();
+    private final int bufferSize;
+    private final Counter droppedUserEvents;
+    private final Counter droppedRoleEvents;
+
+    public ChangeEvents(@Value("${bff.subscriptions.buffer-size:256}") int bufferSize, MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.droppedUserEvents = Counter.builder("bff.subscriptions.dropped").tag("topic", "users")
+                .register(meterRegistry);
+        this.droppedRoleEvents = Counter.builder("bff.subscriptions.dropped").tag("topic", "roles")
+                .register(meterRegistry);
+        Gauge.builder("bff.subscriptions.active", users, Sinks.Many::currentSubscriberCount).tag("topic", "users")
+                .register(meterRegistry);
+        Gauge.builder("bff.subscriptions.active", roles, Sinks.Many::currentSubscriberCount).tag("topic", "roles")
+                .register(meterRegistry);
+    }
+
+    public Flux<ChangeEvent<User>> users() {
+        return subscribe(users, droppedUserEvents);
+    }
+
+    public Flux<ChangeEvent<Role>> roles() {
+        return subscribe(roles, droppedRoleEvents);
+    }
+
+    public void userCreated(User user) {
+        emit(users, droppedUserEvents, ChangeEvent.of(Type.CREATED, user.getUserId(), user));
+    }
+
+    public void userUpdated(User user) {
+        emit(users, droppedUserEvents, ChangeEvent.of(Type.UPDATED, user.getUserId(), user));
+    }
+
+    public void userDeleted(UUID userId) {
+        emit(users, droppedUserEvents, ChangeEvent.of(Type.DELETED, userId, null));
+    }
+
+    public void roleCreated(Role role) {
+        emit(roles, droppedRoleEvents, ChangeEvent.of(Type.CREATED, role.getRoleId(), role));
+    }
+
+    public void roleUpdated(Role role) {
+        emit(roles, droppedRoleEvents, ChangeEvent.of(Type.UPDATED, role.getRoleId(), role));
+    }
+
+    public void roleDeleted(Long roleId) {
+        emit(roles, droppedRoleEvents, ChangeEvent.of(Type.DELETED, roleId, null));
+    }
+
+    private static <T> void emit(Sinks.Many<ChangeEvent<T>> sink, Counter dropped, ChangeEvent<T> event) {
+        Sinks.EmitResult result;
+        synchronized (sink) {
+            result = sink.tryEmitNext(event);
+        }
+        // Having no subscribers is the common case, not a drop
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            dropped.increment();
+        }
+    }
+
+    // The buffer requests everything from the sink, so a slow subscriber never holds up the others
+    private <T> Flux<ChangeEvent<T>> subscribe(Sinks.Many<ChangeEvent<T>> sink, Counter dropped) {
+        return sink.asFlux()
+                .onBackpressureBuffer(bufferSize, event -> dropped.increment(), BufferOverflowStrategy.DROP_OLDEST);
+    }
+}
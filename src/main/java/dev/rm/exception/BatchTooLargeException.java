@@ -0,0 +1,12 @@
+package dev.rm.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BatchTooLargeException extends RuntimeException {
+
+    public BatchTooLargeException(int size, int maxItems) {
+        super("Batch of " + size + " items exceeds the limit of " + maxItems);
+    }
+}
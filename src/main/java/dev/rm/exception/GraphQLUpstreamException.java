@@ -0,0 +1,35 @@
+package dev.rm.exception;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * An upstream GraphQL function answered, but with {@code errors} or with a
+ * null root field. A null root field means the function found nothing and is
+ * reported as 404, like the REST functions do; errors are reported as 502
+ * with their messages.
+ */
+public class GraphQLUpstreamException extends UpstreamException {
+
+    private final List<String> errors;
+
+    public GraphQLUpstreamException(HttpStatusCode statusCode, String message, List<String> errors) {
+        super(statusCode, message);
+        this.errors = List.copyOf(errors);
+    }
+
+    public static GraphQLUpstreamException notFound(String rootField) {
+        return new GraphQLUpstreamException(HttpStatus.NOT_FOUND, "No " + rootField + " returned", List.of());
+    }
+
+    public static GraphQLUpstreamException errors(String rootField, List<String> errors) {
+        return new GraphQLUpstreamException(HttpStatus.BAD_GATEWAY,
+                "GraphQL error in " + rootField + ": " + String.join("; ", errors), errors);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.rm.exception;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(String field, List<String> readableFields) {
+        super("Unknown field '" + field + "', expected one of " + readableFields);
+    }
+}
@@ -0,0 +1,17 @@
+package dev.rm.exception;
+
+import org.springframework.http.HttpStatusCode;
+
+public class UpstreamException extends RuntimeException {
+
+    private final HttpStatusCode statusCode;
+
+    public UpstreamException(HttpStatusCode statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public HttpStatusCode getStatusCode() {
+        return statusCode;
+    }
+}
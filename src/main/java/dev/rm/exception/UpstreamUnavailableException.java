@@ -0,0 +1,12 @@
+package dev.rm.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String endpoint, Throwable cause) {
+        super("Azure Function " + endpoint + " is temporarily unavailable", cause);
+    }
+}
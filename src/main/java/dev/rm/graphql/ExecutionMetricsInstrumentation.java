@@ -0,0 +1,135 @@
+package dev.rm.graphql;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import graphql.ExecutionResult;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.OperationDefinition;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLNamedType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Times incoming GraphQL operations as {@code bff.graphql.operation}, tagged
+ * with the operation type, and every non-trivial field fetch as
+ * {@code bff.graphql.field}, tagged with {@code Type.field}. Operation names
+ * come from the client, so only the configured ones become a tag value; any
+ * other named operation is tagged {@code other}. Plain property fetchers are left unwrapped so scalar
+ * fields add no overhead. Each operation is also logged at DEBUG with its
+ * name, outcome and latency.
+ */
+@Slf4j
+public class ExecutionMetricsInstrumentation extends SimplePerformantInstrumentation {
+
+    private final MeterRegistry meterRegistry;
+    private final Set<String> operationNames;
+
+    public ExecutionMetricsInstrumentation(MeterRegistry meterRegistry, Set<String> operationNames) {
+        this.meterRegistry = meterRegistry;
+        this.operationNames = Set.copyOf(operationNames);
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new OperationState(parameters.getExecutionInput().getOperationName());
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecution(InstrumentationExecutionParameters parameters,
+            InstrumentationState state) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        OperationState operation = (OperationState) state;
+        return SimpleInstrumentationContext.whenCompleted((result, error) -> {
+            String name = operation.name != null ? operation.name : "anonymous";
+            String outcome = error == null && result.getErrors().isEmpty() ? "SUCCESS" : "ERROR";
+            long nanos = sample.stop(Timer.builder("bff.graphql.operation")
+                    .description("Incoming GraphQL operations")
+                    .tag("type", operation.type)
+                    .tag("operation", operationTag(operation.name))
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            log.atDebug().setMessage("GraphQL operation")
+                    .addKeyValue("operation", name)
+                    .addKeyValue("outcome", outcome)
+                    .addKeyValue("latencyMs", TimeUnit.NANOSECONDS.toMillis(nanos))
+                    .log();
+        });
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+        OperationDefinition definition = parameters.getExecutionContext().getOperationDefinition();
+        OperationState operation = (OperationState) state;
+        operation.type = definition.getOperation().name().toLowerCase(Locale.ROOT);
+        // The document's own operation name, for requests that do not send one
+        if (definition.getName() != null) {
+            operation.name = definition.getName();
+        }
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    private String operationTag(String name) {
+        if (name == null) {
+            return "anonymous";
+        }
+        return operationNames.contains(name) ? name : "other";
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+            InstrumentationFieldFetchParameters parameters, InstrumentationState state) {
+        if (parameters.isTrivialDataFetcher()) {
+            return dataFetcher;
+        }
+        return environment -> {
+            String field = ((GraphQLNamedType) environment.getParentType()).getName() + "."
+                    + environment.getFieldDefinition().getName();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            Object result;
+            try {
+                result = dataFetcher.get(environment);
+            } catch (Exception e) {
+                stop(sample, field, "ERROR");
+                throw e;
+            }
+            if (result instanceof CompletionStage<?> stage) {
+                return stage.whenComplete((value, error) -> stop(sample, field, error == null ? "SUCCESS" : "ERROR"));
+            }
+            stop(sample, field, "SUCCESS");
+            return result;
+        };
+    }
+
+    private void stop(Timer.Sample sample, String field, String outcome) {
+        sample.stop(Timer.builder("bff.graphql.field")
+                .description("GraphQL field fetches")
+                .tag("field", field)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private static final class OperationState implements InstrumentationState {
+
+        private volatile String name;
+        // Until the document is parsed and validated
+        private volatile String type = "unknown";
+
+        OperationState(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dev.rm.graphql;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Keeps parsed and validated documents for incoming GraphQL requests, keyed
+ * by query text, and answers Apollo automatic persisted queries keyed by
+ * their SHA-256 hash. Documents that fail to parse or validate are not
+ * kept. Hit rates are published as {@code cache.*} metrics under
+ * {@code graphqlDocuments} and {@code graphqlPersistedQueries}; parse time
+ * on misses is {@code bff.graphql.document.parse} and the parse time that
+ * hits avoided is {@code bff.graphql.document.parse.saved}.
+ */
+@Component
+public class GraphQLDocumentCache implements PreparsedDocumentProvider {
+
+    private final Cache<String, CachedDocument> documents;
+    private final Cache<String, CachedDocument> persistedQueries;
+    private final PreparsedDocumentProvider persistedQuerySupport;
+    private final boolean persistedQueriesEnabled;
+    private final Timer parseTimer;
+    private final Counter parseTimeSaved;
+
+    public GraphQLDocumentCache(
+            @Value("${bff.graphql.documents.max-size:1000}") long maxSize,
+            @Value("${bff.graphql.documents.persisted-queries:true}") boolean persistedQueriesEnabled,
+            MeterRegistry meterRegistry) {
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.persistedQueries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.persistedQueriesEnabled = persistedQueriesEnabled;
+        this.persistedQuerySupport = new ApolloPersistedQuerySupport(this::persistedQueryDocument);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, documents, "graphqlDocuments");
+        CaffeineCacheMetrics.monitor(meterRegistry, persistedQueries, "graphqlPersistedQueries");
+        this.parseTimer = Timer.builder("bff.graphql.document.parse")
+                .description("Parsing and validation of incoming GraphQL documents on cache misses")
+                .register(meterRegistry);
+        this.parseTimeSaved = Counter.builder("bff.graphql.document.parse.saved")
+                .description("Parse and validation time avoided by document cache hits")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        if (persistedQueriesEnabled && executionInput.getExtensions().get("persistedQuery") instanceof Map) {
+            return persistedQuerySupport.getDocumentAsync(executionInput, parseAndValidateFunction);
+        }
+        return CompletableFuture.completedFuture(lookup(documents, executionInput.getQuery(),
+                () -> parseAndValidateFunction.apply(executionInput)));
+    }
+
+    private CompletableFuture<PreparsedDocumentEntry> persistedQueryDocument(Object persistedQueryId,
+            ExecutionInput executionInput, Function<String, PreparsedDocumentEntry> onCacheMiss) {
+        String hash = persistedQueryId.toString();
+        String query = executionInput.getQuery();
+        // Checked through the map view so only the lookup below counts as a hit or miss
+        if (!persistedQueries.asMap().containsKey(hash)
+                && (query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query))) {
+            throw new PersistedQueryNotFound(persistedQueryId);
+        }
+        return CompletableFuture.completedFuture(lookup(persistedQueries, hash, () -> onCacheMiss.apply(query)));
+    }
+
+    private PreparsedDocumentEntry lookup(Cache<String, CachedDocument> cache, String key,
+            Supplier<PreparsedDocumentEntry> parseAndValidate) {
+        CachedDocument cached = cache.getIfPresent(key);
+        if (cached != null) {
+            parseTimeSaved.increment(cached.parseNanos() / 1e9);
+            return cached.entry();
+        }
+        long start = System.nanoTime();
+        PreparsedDocumentEntry entry = parseAndValidate.get();
+        long parseNanos = System.nanoTime() - start;
+        parseTimer.record(parseNanos, TimeUnit.NANOSECONDS);
+        if (!entry.hasErrors()) {
+            cache.put(key, new CachedDocument(entry, parseNanos));
+        }
+        return entry;
+    }
+
+    private record CachedDocument(PreparsedDocumentEntry entry, long parseNanos) {
+    }
+}
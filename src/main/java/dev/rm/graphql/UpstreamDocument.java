@@ -0,0 +1,35 @@
+package dev.rm.graphql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An upstream GraphQL operation parsed and validated once at startup.
+ * {@code text} is the compact printed form that is sent on the wire and
+ * {@code sha256Hash} is its persisted-query hash.
+ */
+public record UpstreamDocument(String name, String operationName, boolean mutation, String text,
+        String sha256Hash) {
+
+    /**
+     * The request body {@link UpstreamGraphQLClient} posts for this document.
+     * Without {@code includeQuery} only the persisted-query hash identifies it.
+     */
+    public Map<String, Object> requestBody(Map<String, Object> variables, boolean includeQuery,
+            boolean persistedQuery) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (includeQuery) {
+            body.put("query", text);
+        }
+        body.put("operationName", operationName);
+        if (!variables.isEmpty()) {
+            body.put("variables", variables);
+        }
+        if (persistedQuery) {
+            body.put("extensions", Map.of("persistedQuery", Map.of(
+                    "version", 1,
+                    "sha256Hash", sha256Hash)));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,80 @@
+package dev.rm.graphql;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import graphql.language.AstPrinter;
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registry of the GraphQL documents sent to the upstream functions, loaded
+ * from {@code classpath:graphql-documents/*.graphql} and keyed by file name.
+ * A document that does not parse fails startup rather than the first call.
+ */
+@Slf4j
+@Component
+public class UpstreamDocuments {
+
+    private static final String LOCATION = "classpath:graphql-documents/*.graphql";
+
+    private final Map<String, UpstreamDocument> documents;
+
+    public UpstreamDocuments() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(LOCATION);
+        this.documents = Stream.of(resources)
+                .map(UpstreamDocuments::load)
+                .collect(Collectors.toUnmodifiableMap(UpstreamDocument::name, Function.identity()));
+        log.info("Loaded {} upstream GraphQL documents", documents.size());
+    }
+
+    public UpstreamDocument get(String name) {
+        UpstreamDocument document = documents.get(name);
+        if (document == null) {
+            throw new IllegalArgumentException("Unknown upstream GraphQL document: " + name);
+        }
+        return document;
+    }
+
+    private static UpstreamDocument load(Resource resource) {
+        String filename = resource.getFilename();
+        String name = filename.substring(0, filename.lastIndexOf('.'));
+        try {
+            Document document = Parser.parse(resource.getContentAsString(StandardCharsets.UTF_8));
+            List<OperationDefinition> operations = document.getDefinitionsOfType(OperationDefinition.class);
+            if (operations.size() != 1) {
+                throw new IllegalStateException(filename + " must define exactly one operation");
+            }
+            OperationDefinition operation = operations.get(0);
+            String text = AstPrinter.printAstCompact(document);
+            return new UpstreamDocument(name, operation.getName(),
+                    operation.getOperation() == OperationDefinition.Operation.MUTATION, text, sha256(text));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + filename, e);
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
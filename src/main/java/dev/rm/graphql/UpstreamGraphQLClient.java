@@ -0,0 +1,159 @@
+package dev.rm.graphql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.rm.exception.GraphQLUpstreamException;
+import dev.rm.graphql.UpstreamResponseDecoder.Response;
+import dev.rm.metrics.UpstreamMetrics;
+import dev.rm.resilience.UpstreamResilience;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends registered documents to the upstream GraphQL functions with their
+ * arguments as {@code variables}. With persisted queries enabled the first
+ * attempt carries only the document hash (automatic persisted queries); the
+ * full text is sent only when the upstream reports the hash as unknown.
+ */
+@Slf4j
+@Component
+public class UpstreamGraphQLClient {
+
+    private static final String PERSISTED_QUERY_NOT_FOUND = "PersistedQueryNotFound";
+    private static final String PERSISTED_QUERY_NOT_SUPPORTED = "PersistedQueryNotSupported";
+    private static final String NOT_FOUND = "NOT_FOUND";
+
+    private final WebClient graphqlWebClient;
+    private final UpstreamDocuments upstreamDocuments;
+    private final UpstreamResilience upstreamResilience;
+    private final UpstreamMetrics upstreamMetrics;
+    private final UpstreamResponseDecoder responseDecoder;
+    private final AtomicBoolean persistedQueries;
+
+    public UpstreamGraphQLClient(WebClient graphqlWebClient, UpstreamDocuments upstreamDocuments,
+            UpstreamResilience upstreamResilience, UpstreamMetrics upstreamMetrics, ObjectMapper objectMapper,
+            @Value("${bff.graphql.upstream.persisted-queries:false}") boolean persistedQueries) {
+        this.graphqlWebClient = graphqlWebClient;
+        this.upstreamDocuments = upstreamDocuments;
+        this.upstreamResilience = upstreamResilience;
+        this.upstreamMetrics = upstreamMetrics;
+        this.responseDecoder = new UpstreamResponseDecoder(objectMapper);
+        this.persistedQueries = new AtomicBoolean(persistedQueries);
+    }
+
+    /**
+     * Executes the named document against {@code uri} and decodes
+     * {@code data.<documentName>} into {@code type}. The document name is the
+     * root field and doubles as the operation name for timeouts and metrics.
+     */
+    public <T> Mono<T> execute(String uri, String documentName, Map<String, Object> variables, Class<T> type) {
+        return execute(uri, documentName, variables, responseDecoder.typeOf(type));
+    }
+
+    public <T> Flux<T> executeList(String uri, String documentName, Map<String, Object> variables, Class<T> type) {
+        return this.<List<T>>execute(uri, documentName, variables, responseDecoder.listOf(type))
+                .flatMapIterable(items -> items);
+    }
+
+    private <T> Mono<T> execute(String uri, String documentName, Map<String, Object> variables, JavaType type) {
+        UpstreamDocument document = upstreamDocuments.get(documentName);
+        log.debug("Sending GraphQL {} to {}", document.operationName(), uri);
+
+        Mono<T> call = Mono.defer(() -> this.<T>exchange(uri, document, variables, type))
+                .map(response -> data(response, documentName))
+                .doOnError(e -> !isNotFound(e),
+                        e -> log.error("Error executing {}: {}", document.operationName(), e.getMessage()));
+
+        String endpoint = uri.substring(1);
+        return document.mutation()
+                ? upstreamResilience.write(documentName, endpoint, call)
+                : upstreamResilience.read(documentName, endpoint, call);
+    }
+
+    private <T> Mono<Response<T>> exchange(String uri, UpstreamDocument document, Map<String, Object> variables,
+            JavaType type) {
+        if (!persistedQueries.get()) {
+            return post(uri, document, variables, type, true);
+        }
+        return this.<T>post(uri, document, variables, type, false)
+                .flatMap(response -> isPersistedQueryMiss(response)
+                        ? post(uri, document, variables, type, true)
+                        : Mono.just(response));
+    }
+
+    private <T> Mono<Response<T>> post(String uri, UpstreamDocument document, Map<String, Object> variables,
+            JavaType type, boolean includeQuery) {
+        Map<String, Object> body = document.requestBody(variables, includeQuery, persistedQueries.get());
+
+        return graphqlWebClient.post()
+                .uri(uri)
+                .header("X-REQUEST-TYPE", "GraphQL")
+                .attribute(UpstreamMetrics.OPERATION_ATTRIBUTE, document.name())
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(DataBuffer.class)
+                .map(buffer -> {
+                    int bytes = buffer.readableByteCount();
+                    long start = System.nanoTime();
+                    try (InputStream in = buffer.asInputStream(true)) {
+                        Response<T> response = responseDecoder.decode(in, document.name(), type);
+                        upstreamMetrics.recordGraphQLResponse(document.name(), bytes, System.nanoTime() - start);
+                        return response;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to decode GraphQL response", e);
+                    }
+                });
+    }
+
+    private boolean isPersistedQueryMiss(Response<?> response) {
+        for (UpstreamResponseDecoder.Error error : response.errors()) {
+            if (PERSISTED_QUERY_NOT_SUPPORTED.equals(error.message())) {
+                log.warn("Upstream does not support persisted queries, sending full documents from now on");
+                persistedQueries.set(false);
+                return true;
+            }
+            if (PERSISTED_QUERY_NOT_FOUND.equals(error.message()) || "PERSISTED_QUERY_NOT_FOUND".equals(error.code())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNotFound(Throwable e) {
+        return e instanceof GraphQLUpstreamException graphql && graphql.getStatusCode().value() == 404;
+    }
+
+    /**
+     * The decoded root field. Errors become a {@link GraphQLUpstreamException},
+     * reported as not found when the root field is null or every error says
+     * {@code NOT_FOUND}.
+     */
+    static <T> T data(Response<T> response, String rootField) {
+        if (response.hasErrors()) {
+            if (response.errors().stream().allMatch(error -> NOT_FOUND.equals(error.code()))) {
+                throw GraphQLUpstreamException.notFound(rootField);
+            }
+            List<String> errors = response.errors().stream().map(UpstreamResponseDecoder.Error::message).toList();
+            log.error("GraphQL error in {}: {}", rootField, errors);
+            throw GraphQLUpstreamException.errors(rootField, errors);
+        }
+        if (response.data() == null) {
+            throw GraphQLUpstreamException.notFound(rootField);
+        }
+        return response.data();
+    }
+}
@@ -0,0 +1,108 @@
+package dev.rm.graphql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Streams an upstream GraphQL response and binds {@code data.<rootField>}
+ * straight into the target type. Sibling fields are skipped and no
+ * intermediate map tree is built for the payload.
+ */
+public class UpstreamResponseDecoder {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader errorReader;
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public UpstreamResponseDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.errorReader = reader(objectMapper.constructType(Error.class));
+    }
+
+    public JavaType listOf(Class<?> elementType) {
+        return objectMapper.getTypeFactory().constructCollectionType(List.class, elementType);
+    }
+
+    public JavaType typeOf(Class<?> type) {
+        return objectMapper.constructType(type);
+    }
+
+    public <T> Response<T> decode(InputStream body, String rootField, JavaType type) throws IOException {
+        T data = null;
+        List<Error> errors = List.of();
+
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("data".equals(field) && value == JsonToken.START_OBJECT) {
+                    data = readRootField(parser, rootField, type);
+                } else if ("errors".equals(field) && value == JsonToken.START_ARRAY) {
+                    errors = readErrors(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new Response<>(data, errors);
+    }
+
+    private <T> T readRootField(JsonParser parser, String rootField, JavaType type) throws IOException {
+        T data = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (rootField.equals(field) && value != JsonToken.VALUE_NULL) {
+                data = reader(type).readValue(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return data;
+    }
+
+    private List<Error> readErrors(JsonParser parser) throws IOException {
+        List<Error> errors = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            errors.add(errorReader.readValue(parser));
+        }
+        return errors;
+    }
+
+    private ObjectReader reader(JavaType type) {
+        return readers.computeIfAbsent(type, t -> objectMapper.readerFor(t)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Malformed GraphQL response: expected " + expected + " but got " + actual);
+        }
+    }
+
+    public record Response<T>(T data, List<Error> errors) {
+
+        public boolean hasErrors() {
+            return !errors.isEmpty();
+        }
+    }
+
+    public record Error(String message, Map<String, Object> extensions) {
+
+        public String code() {
+            return extensions != null && extensions.get("code") != null ? extensions.get("code").toString() : null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package dev.rm.http;
+
+import java.time.Duration;
+
+import org.springframework.boot.autoconfigure.web.WebProperties.Resources.Cache.Cachecontrol;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * {@code Cache-Control} directives sent with ETag-tagged reads, bound like
+ * {@code spring.web.resources.cache.cachecontrol} (for example
+ * {@code bff.cache-control.roles.max-age=60s}). Other responses keep Spring
+ * Security's default, which forbids storing them at all.
+ */
+@Data
+@ConfigurationProperties(prefix = "bff.cache-control")
+public class CacheControlProperties {
+
+    // Stored, but revalidated with If-None-Match on every use
+    private final Cachecontrol users = new Cachecontrol();
+
+    private final Cachecontrol roles = new Cachecontrol();
+
+    public CacheControlProperties() {
+        users.setNoCache(true);
+        roles.setMaxAge(Duration.ofSeconds(60));
+    }
+}
@@ -0,0 +1,77 @@
+package dev.rm.http;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import dev.rm.exception.InvalidFieldsException;
+import dev.rm.model.User;
+
+/**
+ * How users are written in responses. The password is accepted in request
+ * bodies but never written back, and {@code ?fields=} picks which of the
+ * other properties are written. Only the application's {@link ObjectMapper}
+ * is configured this way; WebClient requests to the functions keep sending
+ * the password.
+ */
+public final class UserJson {
+
+    public static final List<String> READABLE_FIELDS = List.of("userId", "username", "email", "role");
+
+    private static final String FILTER = "userFields";
+    private static final FilterProvider ALL_FIELDS = new SimpleFilterProvider()
+            .addFilter(FILTER, SimpleBeanPropertyFilter.serializeAll());
+
+    private UserJson() {
+    }
+
+    public static ObjectMapper register(ObjectMapper objectMapper) {
+        return objectMapper
+                .addMixIn(User.class, ResponseUser.class)
+                .setFilterProvider(ALL_FIELDS);
+    }
+
+    /**
+     * Parses a comma separated {@code fields} parameter. Returns null, meaning
+     * every readable field, when the parameter is absent or blank.
+     */
+    public static Set<String> fields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!READABLE_FIELDS.contains(name)) {
+                throw new InvalidFieldsException(name, READABLE_FIELDS);
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+
+    // Filters are applied per value, so one mapper serves every projection
+    public static MappingJacksonValue project(Object body, Set<String> fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(fields == null
+                ? ALL_FIELDS
+                : new SimpleFilterProvider().addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        return value;
+    }
+
+    @JsonFilter(FILTER)
+    private abstract static class ResponseUser {
+
+        @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+        private String password;
+    }
+}
@@ -0,0 +1,55 @@
+package dev.rm.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Keeps one in {@code sampleRate} INFO and DEBUG events from the configured
+ * logger prefixes and drops the rest before a logging event is even created.
+ * Events are picked at random rather than by a shared counter, so request
+ * threads never contend here. Warnings, errors and events carrying a
+ * throwable always pass.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final List<String> sampledLoggers = new ArrayList<>();
+    private int sampleRate = 1;
+
+    public void addSampledLogger(String prefix) {
+        sampledLoggers.add(prefix);
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+            Throwable t) {
+        if (sampleRate <= 1 || !isSampledLevel(level) || t != null || !isSampled(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextInt(sampleRate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private static boolean isSampledLevel(Level level) {
+        return level == Level.INFO || level == Level.DEBUG;
+    }
+
+    private boolean isSampled(String loggerName) {
+        for (String prefix : sampledLoggers) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,106 @@
+package dev.rm.metrics;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times every Azure Function exchange as {@code bff.upstream.requests},
+ * tagged by operation, transport, status and outcome. The operation is the
+ * function name without its {@code Function}/{@code FunctionGraphQL}
+ * suffix unless the request carries an {@link #OPERATION_ATTRIBUTE}.
+ * GraphQL responses additionally record their size and decode time. Each
+ * call is also logged at DEBUG with the same fields and its latency.
+ */
+@Slf4j
+@Component
+public class UpstreamMetrics implements ExchangeFilterFunction {
+
+    public static final String OPERATION_ATTRIBUTE = UpstreamMetrics.class.getName() + ".operation";
+
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String function = functionName(request.url());
+        String transport = function.endsWith("GraphQL") ? "graphql" : "rest";
+        String operation = request.attribute(OPERATION_ATTRIBUTE)
+                .map(Object::toString)
+                .orElseGet(() -> operationName(function));
+
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicBoolean recorded = new AtomicBoolean();
+            return next.exchange(request)
+                    .doOnNext(response -> record(sample, recorded, operation, transport,
+                            String.valueOf(response.statusCode().value()),
+                            Outcome.forStatus(response.statusCode().value()).name()))
+                    .doOnError(e -> record(sample, recorded, operation, transport, "IO_ERROR", "UNKNOWN"))
+                    .doOnCancel(() -> record(sample, recorded, operation, transport, "CANCELED", "UNKNOWN"));
+        });
+    }
+
+    public void recordGraphQLResponse(String operation, long bytes, long decodeNanos) {
+        DistributionSummary.builder("bff.upstream.graphql.response.size")
+                .description("Size of upstream GraphQL response bodies")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(bytes);
+        Timer.builder("bff.upstream.graphql.decode")
+                .description("Time spent decoding upstream GraphQL responses")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(decodeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void record(Timer.Sample sample, AtomicBoolean recorded, String operation, String transport,
+            String status, String outcome) {
+        if (!recorded.compareAndSet(false, true)) {
+            return;
+        }
+        long nanos = sample.stop(Timer.builder("bff.upstream.requests")
+                .description("Outbound Azure Function calls")
+                .tag("operation", operation)
+                .tag("transport", transport)
+                .tag("status", status)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        log.atDebug().setMessage("Upstream call")
+                .addKeyValue("operation", operation)
+                .addKeyValue("transport", transport)
+                .addKeyValue("status", status)
+                .addKeyValue("latencyMs", TimeUnit.NANOSECONDS.toMillis(nanos))
+                .log();
+    }
+
+    private static String functionName(URI url) {
+        String path = url.getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static String operationName(String function) {
+        int suffix = function.indexOf("Function");
+        return suffix > 0 ? function.substring(0, suffix) : function;
+    }
+}
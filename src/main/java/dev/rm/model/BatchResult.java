@@ -0,0 +1,31 @@
+package dev.rm.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome of one item of a bulk request; index is its position in the request
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult<T> {
+
+    public static final String SUCCESS = "SUCCESS";
+    public static final String ERROR = "ERROR";
+
+    private int index;
+    private String status;
+    private String id;
+    private T item;
+    private String error;
+
+    public static <T> BatchResult<T> success(int index, Object id, T item) {
+        return new BatchResult<>(index, SUCCESS, id != null ? id.toString() : null, item, null);
+    }
+
+    public static <T> BatchResult<T> failure(int index, Object id, String error) {
+        return new BatchResult<>(index, ERROR, id != null ? id.toString() : null, null, error);
+    }
+}
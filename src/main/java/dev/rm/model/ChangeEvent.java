@@ -0,0 +1,26 @@
+package dev.rm.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A write accepted by upstream through this instance; item is null for deletes
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent<T> {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private Type type;
+    private String id;
+    private T item;
+
+    public static <T> ChangeEvent<T> of(Type type, Object id, T item) {
+        return new ChangeEvent<>(type, id != null ? id.toString() : null, item);
+    }
+}
@@ -0,0 +1,34 @@
+package dev.rm.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Relay-style connection returned by the paginated GraphQL queries
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Connection<T> {
+    private List<Edge<T>> edges;
+    private PageInfo pageInfo;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Edge<T> {
+        private String cursor;
+        private T node;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PageInfo {
+        private boolean hasNextPage;
+        private String endCursor;
+    }
+}
@@ -7,6 +7,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @Builder
@@ -17,6 +18,7 @@ public class User {
     private UUID userId;
     private String username;
     private String email;
+    @ToString.Exclude
     private String password;
     private Role role;
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package dev.rm.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Function;
+
+import dev.rm.exception.InvalidCursorException;
+import dev.rm.model.Connection;
+import dev.rm.model.CursorPage;
+
+/**
+ * Opaque key cursors for paging over a local snapshot kept in key order. A
+ * cursor holds the key of the last item a page returned, and the next page
+ * starts at the first key after it. Items added or removed between two
+ * fetches therefore never shift a page by a few positions: the next page
+ * neither repeats nor skips any item that was there on both fetches.
+ */
+public final class Cursors {
+
+    private static final String KEY_PREFIX = "key:";
+
+    private Cursors() {
+    }
+
+    public static String encode(Object key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((KEY_PREFIX + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** The key in {@code cursor}, or null for the first page. */
+    public static <K> K decode(String cursor, Function<String, K> parseKey) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(KEY_PREFIX)) {
+                throw new InvalidCursorException(cursor);
+            }
+            return parseKey.apply(decoded.substring(KEY_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public static <K, T> CursorPage<T> page(NavigableMap<K, T> items, String cursor, int limit,
+            Function<String, K> parseKey) {
+        return page(slice(after(items, decode(cursor, parseKey)), limit));
+    }
+
+    /** Pages over {@code items}, which must be sorted by {@code keyOf}. */
+    public static <K extends Comparable<? super K>, T> CursorPage<T> page(List<T> items, Function<T, K> keyOf,
+            String cursor, int limit, Function<String, K> parseKey) {
+        return page(slice(after(items, keyOf, decode(cursor, parseKey)), limit));
+    }
+
+    public static <K, T> Connection<T> connection(NavigableMap<K, T> items, String after, int first,
+            Function<String, K> parseKey) {
+        return connection(slice(after(items, decode(after, parseKey)), first), after);
+    }
+
+    /** Connection over {@code items}, which must be sorted by {@code keyOf}. */
+    public static <K extends Comparable<? super K>, T> Connection<T> connection(List<T> items,
+            Function<T, K> keyOf, String after, int first, Function<String, K> parseKey) {
+        return connection(slice(after(items, keyOf, decode(after, parseKey)), first), after);
+    }
+
+    private static <K, T> Iterator<Map.Entry<K, T>> after(NavigableMap<K, T> items, K key) {
+        return (key == null ? items : items.tailMap(key, false)).entrySet().iterator();
+    }
+
+    private static <K extends Comparable<? super K>, T> Iterator<Map.Entry<K, T>> after(List<T> items,
+            Function<T, K> keyOf, K key) {
+        int low = 0;
+        int high = items.size();
+        while (key != null && low < high) {
+            int mid = (low + high) >>> 1;
+            K midKey = keyOf.apply(items.get(mid));
+            if (midKey == null || midKey.compareTo(key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return items.subList(low, items.size()).stream()
+                .filter(item -> keyOf.apply(item) != null)
+                .map(item -> Map.entry(keyOf.apply(item), item))
+                .iterator();
+    }
+
+    private static <K, T> Slice<T> slice(Iterator<Map.Entry<K, T>> rest, int limit) {
+        List<T> items = new ArrayList<>(Math.min(limit, 64));
+        List<String> cursors = new ArrayList<>(Math.min(limit, 64));
+        while (items.size() < limit && rest.hasNext()) {
+            Map.Entry<K, T> entry = rest.next();
+            items.add(entry.getValue());
+            cursors.add(encode(entry.getKey()));
+        }
+        return new Slice<>(items, cursors, rest.hasNext());
+    }
+
+    private static <T> CursorPage<T> page(Slice<T> slice) {
+        return CursorPage.<T>builder()
+                .items(slice.items())
+                .nextCursor(slice.hasMore() ? slice.lastCursor() : null)
+                .hasMore(slice.hasMore())
+                .build();
+    }
+
+    private static <T> Connection<T> connection(Slice<T> slice, String after) {
+        List<Connection.Edge<T>> edges = new ArrayList<>(slice.items().size());
+        for (int i = 0; i < slice.items().size(); i++) {
+            edges.add(new Connection.Edge<>(slice.cursors().get(i), slice.items().get(i)));
+        }
+
+        return Connection.<T>builder()
+                .edges(edges)
+                .pageInfo(new Connection.PageInfo(slice.hasMore(), edges.isEmpty() ? after : slice.lastCursor()))
+                .build();
+    }
+
+    private record Slice<T>(List<T> items, List<String> cursors, boolean hasMore) {
+
+        String lastCursor() {
+            return cursors.get(cursors.size() - 1);
+        }
+    }
+}
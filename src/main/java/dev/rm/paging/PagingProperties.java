@@ -0,0 +1,24 @@
+package dev.rm.paging;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "bff.paging")
+public class PagingProperties {
+
+    private int defaultLimit = 50;
+    private int maxLimit = 500;
+
+    // Whether the REST functions accept limit/cursor and return a page themselves
+    private boolean upstreamUsers = false;
+    private boolean upstreamRoles = false;
+
+    public int limit(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultLimit;
+        }
+        return Math.min(requested, maxLimit);
+    }
+}
@@ -0,0 +1,46 @@
+package dev.rm.resilience;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "bff.resilience")
+public class ResilienceProperties {
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration defaultTimeout = Duration.ofSeconds(10);
+
+    // Per logical operation (getUser, getAllRoles, ...), falls back to defaultTimeout
+    private Map<String, Duration> timeouts = new HashMap<>();
+
+    private Retry retry = new Retry();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    public Duration timeoutFor(String operation) {
+        return timeouts.getOrDefault(operation, defaultTimeout);
+    }
+
+    @Data
+    public static class Retry {
+        private int maxAttempts = 2;
+        private Duration minBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+        private double jitter = 0.5;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 100;
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(5);
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private int permittedNumberOfCallsInHalfOpenState = 3;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,124 @@
+package dev.rm.resilience;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import dev.rm.exception.GraphQLUpstreamException;
+import dev.rm.exception.UpstreamException;
+import dev.rm.exception.UpstreamUnavailableException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Timeouts, retries and circuit breaking for outbound Azure Function calls.
+ * Timeouts are looked up per logical operation, breakers are kept per
+ * function endpoint, and only idempotent reads are retried.
+ */
+@Slf4j
+@Component
+public class UpstreamResilience {
+
+    private final ResilienceProperties properties;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> retryCounters = new ConcurrentHashMap<>();
+    // Read retries keep no per-call state, so each operation's spec is built once
+    private final Map<String, Retry> readRetries = new ConcurrentHashMap<>();
+
+    public UpstreamResilience(ResilienceProperties properties, CircuitBreakerRegistry circuitBreakerRegistry,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Mono<T> read(String operation, String endpoint, Mono<T> call) {
+        return call.timeout(properties.timeoutFor(operation))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(endpoint)))
+                .retryWhen(readRetries.computeIfAbsent(operation, op -> retry(op, UpstreamResilience::isRetryable)))
+                .onErrorMap(CallNotPermittedException.class, e -> new UpstreamUnavailableException(endpoint, e));
+    }
+
+    public <T> Flux<T> readMany(String operation, String endpoint, Flux<T> call) {
+        return Flux.defer(() -> {
+            // Once items have reached the caller a retry would duplicate them
+            AtomicBoolean emitted = new AtomicBoolean();
+            return call.timeout(properties.timeoutFor(operation))
+                    .doOnNext(item -> emitted.set(true))
+                    .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(endpoint)))
+                    .retryWhen(retry(operation, e -> !emitted.get() && isRetryable(e)))
+                    .onErrorMap(CallNotPermittedException.class, e -> new UpstreamUnavailableException(endpoint, e));
+        });
+    }
+
+    public <T> Mono<T> write(String operation, String endpoint, Mono<T> call) {
+        return call.timeout(properties.timeoutFor(operation))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(endpoint)))
+                .onErrorMap(CallNotPermittedException.class, e -> new UpstreamUnavailableException(endpoint, e));
+    }
+
+    private Retry retry(String operation, Predicate<Throwable> retryable) {
+        ResilienceProperties.Retry retry = properties.getRetry();
+        Counter retries = retryCounters.computeIfAbsent(operation, op -> Counter.builder("bff.upstream.retries")
+                .tag("operation", op)
+                .register(meterRegistry));
+
+        return Retry.backoff(retry.getMaxAttempts(), retry.getMinBackoff())
+                .maxBackoff(retry.getMaxBackoff())
+                .jitter(retry.getJitter())
+                .filter(retryable)
+                .doBeforeRetry(signal -> {
+                    retries.increment();
+                    log.warn("Retrying {} after attempt {}: {}", operation, signal.totalRetries() + 1,
+                            signal.failure().getMessage());
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    static boolean isRetryable(Throwable e) {
+        if (e instanceof TimeoutException || e instanceof WebClientRequestException) {
+            return true;
+        }
+        // The function did answer, and would answer the same errors again
+        if (e instanceof GraphQLUpstreamException) {
+            return false;
+        }
+        HttpStatusCode status = statusOf(e);
+        return status != null && (status.is5xxServerError() || status.value() == 429);
+    }
+
+    /**
+     * Client errors, including a GraphQL function finding nothing, are the
+     * caller's fault, not the function's, so they do not count against the
+     * circuit breaker.
+     */
+    public static boolean isFailure(Throwable e) {
+        HttpStatusCode status = statusOf(e);
+        return status == null || !status.is4xxClientError();
+    }
+
+    private static HttpStatusCode statusOf(Throwable e) {
+        if (e instanceof UpstreamException upstream) {
+            return upstream.getStatusCode();
+        }
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode();
+        }
+        return null;
+    }
+}
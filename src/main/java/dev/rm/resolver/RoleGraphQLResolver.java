@@ -1,16 +1,20 @@
 package dev.rm.resolver;
 
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
 import org.springframework.stereotype.Controller;
 
+import dev.rm.model.BatchResult;
+import dev.rm.model.ChangeEvent;
+import dev.rm.model.Connection;
 import dev.rm.model.Role;
 import dev.rm.service.RoleGraphQLService;
-import graphql.kickstart.tools.GraphQLMutationResolver;
-import graphql.kickstart.tools.GraphQLQueryResolver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
@@ -19,40 +23,86 @@ import reactor.core.publisher.Mono;
 @Controller
 @Slf4j
 @RequiredArgsConstructor
-public class RoleGraphQLResolver implements GraphQLQueryResolver, GraphQLMutationResolver {
+public class RoleGraphQLResolver {
 
     private final RoleGraphQLService roleGraphQLService;
 
     @QueryMapping
     public Flux<Role> getAllRoles() {
-        log.info("GraphQL request: getAllRoles");
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "getAllRoles").log();
         return roleGraphQLService.getAllRoles();
     }
 
+    @QueryMapping
+    public Mono<Connection<Role>> roles(@Argument Integer first, @Argument String after) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "roles")
+                .addKeyValue("first", first).addKeyValue("after", after).log();
+        return roleGraphQLService.getRolesConnection(first, after);
+    }
+
     @QueryMapping
     public Mono<Role> getRole(@Argument String id) {
-        log.info("GraphQL request: getRole with id: {}", id);
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "getRole").addKeyValue("id", id).log();
         return roleGraphQLService.getRoleById(Long.valueOf(id));
     }
 
     @MutationMapping
     public Mono<Role> saveRole(@Argument("input") Map<String, Object> input) {
-        log.info("GraphQL request: saveRole with input: {}", input);
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "saveRole").log();
         return roleGraphQLService.createRole(convertToRole(input));
     }
 
     @MutationMapping
     public Mono<Role> updateRole(@Argument String id, @Argument("input") Map<String, Object> input) {
-        log.info("GraphQL request: updateRole with id: {} and input: {}", id, input);
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "updateRole").addKeyValue("id", id)
+                .addKeyValue("fields", input.keySet()).log();
         return roleGraphQLService.updateRole(Long.valueOf(id), input);
     }
 
     @MutationMapping
     public Mono<Boolean> deleteRole(@Argument String id) {
-        log.info("GraphQL request: deleteRole with id: {}", id);
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "deleteRole").addKeyValue("id", id).log();
         return roleGraphQLService.deleteRole(Long.valueOf(id));
     }
 
+    @MutationMapping
+    public Flux<BatchResult<Role>> saveRoles(@Argument List<Map<String, Object>> inputs) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "saveRoles")
+                .addKeyValue("items", inputs.size()).log();
+        return roleGraphQLService.createRoles(inputs.stream().map(this::convertToRole).toList());
+    }
+
+    @MutationMapping
+    public Flux<BatchResult<Role>> updateRoles(@Argument List<Map<String, Object>> inputs) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "updateRoles")
+                .addKeyValue("items", inputs.size()).log();
+        return roleGraphQLService.updateRoles(inputs);
+    }
+
+    @MutationMapping
+    public Flux<BatchResult<Void>> deleteRoles(@Argument List<String> ids) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "deleteRoles")
+                .addKeyValue("items", ids.size()).log();
+        return roleGraphQLService.deleteRoles(ids.stream().map(Long::valueOf).toList());
+    }
+
+    @SchemaMapping(typeName = "RoleBatchResult", field = "role")
+    public Role batchResultRole(BatchResult<Role> result) {
+        return result.getItem();
+    }
+
+    @SubscriptionMapping
+    public Flux<ChangeEvent<Role>> roleChanged(@Argument String id) {
+        log.atInfo().setMessage("GraphQL subscription").addKeyValue("operation", "roleChanged")
+                .addKeyValue("id", id).log();
+        return roleGraphQLService.roleChanges(id != null ? Long.valueOf(id) : null);
+    }
+
+    @SchemaMapping(typeName = "RoleChange", field = "role")
+    public Role roleChangeRole(ChangeEvent<Role> change) {
+        return change.getItem();
+    }
+
     private Role convertToRole(Map<String, Object> input) {
         return Role.builder()
                 .name((String) input.get("name"))
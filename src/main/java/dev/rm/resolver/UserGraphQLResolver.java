@@ -1,19 +1,23 @@
 package dev.rm.resolver;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
 import org.springframework.stereotype.Controller;
 
+import dev.rm.model.BatchResult;
+import dev.rm.model.ChangeEvent;
+import dev.rm.model.Connection;
 import dev.rm.model.Role;
 import dev.rm.model.User;
 
 import dev.rm.service.UserGraphQLService;
-import graphql.kickstart.tools.GraphQLMutationResolver;
-import graphql.kickstart.tools.GraphQLQueryResolver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
@@ -22,40 +26,113 @@ import reactor.core.publisher.Mono;
 @Controller
 @Slf4j
 @RequiredArgsConstructor
-public class UserGraphQLResolver implements GraphQLQueryResolver, GraphQLMutationResolver {
+public class UserGraphQLResolver {
 
     private final UserGraphQLService userGraphQLService;
 
     @QueryMapping
     public Flux<User> getAllUsers() {
-        log.info("GraphQL request: getAllUsers");
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "getAllUsers").log();
         return userGraphQLService.getAllUsers();
     }
 
+    @QueryMapping
+    public Mono<Connection<User>> users(@Argument Integer first, @Argument String after) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "users")
+                .addKeyValue("first", first).addKeyValue("after", after).log();
+        return userGraphQLService.getUsersConnection(first, after);
+    }
+
     @QueryMapping
     public Mono<User> getUser(@Argument String id) {
-        log.info("GraphQL request: getUser with id: {}", id);
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "getUser").addKeyValue("id", id).log();
         return userGraphQLService.getUserById(UUID.fromString(id));
     }
 
+    @QueryMapping
+    public Flux<User> getUsers(@Argument List<String> ids) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "getUsers")
+                .addKeyValue("items", ids.size()).log();
+        return userGraphQLService.getUsers(ids.stream().map(UUID::fromString).toList());
+    }
+
+    @QueryMapping
+    public Flux<User> usersByRole(@Argument String roleId) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "usersByRole")
+                .addKeyValue("roleId", roleId).log();
+        return userGraphQLService.getUsersByRole(Long.valueOf(roleId));
+    }
+
+    @QueryMapping
+    public Mono<User> userByEmail(@Argument String email) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "userByEmail").log();
+        return userGraphQLService.getUserByEmail(email);
+    }
+
+    @QueryMapping
+    public Flux<User> searchUsers(@Argument String usernamePrefix, @Argument Integer first) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "searchUsers")
+                .addKeyValue("usernamePrefix", usernamePrefix).addKeyValue("first", first).log();
+        return userGraphQLService.searchUsers(usernamePrefix, first);
+    }
+
     @MutationMapping
     public Mono<User> saveUser(@Argument("input") Map<String, Object> input) {
-        log.info("GraphQL request: saveUser with input: {}", input);
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "saveUser").log();
         return userGraphQLService.createUser(convertToUser(input));
     }
 
     @MutationMapping
     public Mono<User> updateUser(@Argument String id, @Argument("input") Map<String, Object> input) {
-        log.info("GraphQL request: updateUser with id: {} and input: {}", id, input);
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "updateUser").addKeyValue("id", id)
+                .addKeyValue("fields", input.keySet()).log();
         return userGraphQLService.updateUser(UUID.fromString(id), input);
     }
 
     @MutationMapping
     public Mono<Boolean> deleteUser(@Argument String id) {
-        log.info("GraphQL request: deleteUser with id: {}", id);
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "deleteUser").addKeyValue("id", id).log();
         return userGraphQLService.deleteUser(UUID.fromString(id));
     }
 
+    @MutationMapping
+    public Flux<BatchResult<User>> saveUsers(@Argument List<Map<String, Object>> inputs) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "saveUsers")
+                .addKeyValue("items", inputs.size()).log();
+        return userGraphQLService.createUsers(inputs.stream().map(this::convertToUser).toList());
+    }
+
+    @MutationMapping
+    public Flux<BatchResult<User>> updateUsers(@Argument List<Map<String, Object>> inputs) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "updateUsers")
+                .addKeyValue("items", inputs.size()).log();
+        return userGraphQLService.updateUsers(inputs);
+    }
+
+    @MutationMapping
+    public Flux<BatchResult<Void>> deleteUsers(@Argument List<String> ids) {
+        log.atInfo().setMessage("GraphQL request").addKeyValue("operation", "deleteUsers")
+                .addKeyValue("items", ids.size()).log();
+        return userGraphQLService.deleteUsers(ids.stream().map(UUID::fromString).toList());
+    }
+
+    @SchemaMapping(typeName = "UserBatchResult", field = "user")
+    public User batchResultUser(BatchResult<User> result) {
+        return result.getItem();
+    }
+
+    @SubscriptionMapping
+    public Flux<ChangeEvent<User>> userChanged(@Argument String id) {
+        log.atInfo().setMessage("GraphQL subscription").addKeyValue("operation", "userChanged")
+                .addKeyValue("id", id).log();
+        return userGraphQLService.userChanges(id != null ? UUID.fromString(id) : null);
+    }
+
+    @SchemaMapping(typeName = "UserChange", field = "user")
+    public User userChangeUser(ChangeEvent<User> change) {
+        return change.getItem();
+    }
+
     private User convertToUser(Map<String, Object> input) {
         Role role = Role.builder()
                 .roleId(input.get("roleId") != null ? Long.valueOf(input.get("roleId").toString()) : null)
@@ -0,0 +1,97 @@
+package dev.rm.resolver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.graphql.execution.RuntimeWiringConfigurer;
+import org.springframework.stereotype.Component;
+
+import dev.rm.model.Role;
+import dev.rm.model.User;
+import dev.rm.service.RoleGraphQLService;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.idl.RuntimeWiring;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves {@code User.role} through a per-request {@link DataLoader} when
+ * upstream returned only the roleId. A batch is answered from the cached
+ * role list, so it costs at most one upstream call; ids missing from that
+ * list are looked up one by one.
+ */
+@Slf4j
+@Component
+public class UserRoleResolver implements RuntimeWiringConfigurer {
+
+    public static final String DATA_LOADER_NAME = "role";
+
+    private final RoleGraphQLService roleGraphQLService;
+    private final int concurrency;
+
+    public UserRoleResolver(
+            RoleGraphQLService roleGraphQLService,
+            BatchLoaderRegistry batchLoaderRegistry,
+            @Value("${bff.graphql.dataloader.role.max-batch-size:100}") int maxBatchSize,
+            @Value("${bff.graphql.dataloader.role.caching-enabled:true}") boolean cachingEnabled,
+            @Value("${bff.graphql.dataloader.role.concurrency:8}") int concurrency) {
+        this.roleGraphQLService = roleGraphQLService;
+        this.concurrency = concurrency;
+
+        batchLoaderRegistry.<Long, Role>forName(DATA_LOADER_NAME)
+                .withOptions(options -> options
+                        .setMaxBatchSize(maxBatchSize)
+                        .setCachingEnabled(cachingEnabled))
+                .registerMappedBatchLoader((roleIds, environment) -> loadRoles(roleIds));
+    }
+
+    @Override
+    public void configure(RuntimeWiring.Builder builder) {
+        builder.type("User", typeBuilder -> typeBuilder.dataFetcher("role", this::getRole));
+    }
+
+    private Object getRole(DataFetchingEnvironment environment) {
+        User user = environment.getSource();
+        Role role = user.getRole();
+
+        // Nothing to resolve, or upstream already returned the full role
+        if (role == null || role.getRoleId() == null || role.getName() != null) {
+            return role;
+        }
+
+        DataLoader<Long, Role> dataLoader = environment.getDataLoader(DATA_LOADER_NAME);
+        if (dataLoader == null) {
+            return roleGraphQLService.getRoleById(role.getRoleId());
+        }
+        return dataLoader.load(role.getRoleId());
+    }
+
+    private Mono<Map<Long, Role>> loadRoles(Set<Long> roleIds) {
+        log.debug("Batch loading {} roles", roleIds.size());
+        return roleGraphQLService.getAllRoles()
+                .filter(role -> roleIds.contains(role.getRoleId()))
+                .collectMap(Role::getRoleId, role -> role)
+                .onErrorResume(e -> {
+                    log.warn("Failed to load the role list: {}", e.getMessage());
+                    return Mono.just(Map.of());
+                })
+                .flatMap(roles -> roles.size() == roleIds.size() ? Mono.just(roles) : loadMissing(roleIds, roles));
+    }
+
+    private Mono<Map<Long, Role>> loadMissing(Set<Long> roleIds, Map<Long, Role> found) {
+        return Flux.fromIterable(roleIds)
+                .filter(roleId -> !found.containsKey(roleId))
+                .flatMap(roleId -> roleGraphQLService.getRoleById(roleId)
+                        .map(role -> Map.entry(roleId, role))
+                        .onErrorResume(e -> {
+                            log.warn("Failed to load role {}: {}", roleId, e.getMessage());
+                            return Mono.empty();
+                        }), concurrency)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, () -> new HashMap<>(found));
+    }
+}
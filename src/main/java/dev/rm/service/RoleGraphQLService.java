@@ -1,14 +1,23 @@
 package dev.rm.service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 
-import org.springframework.web.reactive.function.client.WebClient;
-
+import dev.rm.batch.BatchProperties;
+import dev.rm.batch.Batches;
+import dev.rm.cache.RoleCache;
+import dev.rm.cache.UserSnapshot;
+import dev.rm.events.ChangeEvents;
+import dev.rm.graphql.UpstreamGraphQLClient;
+import dev.rm.model.BatchResult;
+import dev.rm.model.ChangeEvent;
+import dev.rm.model.Connection;
 import dev.rm.model.Role;
+import dev.rm.paging.Cursors;
+import dev.rm.paging.PagingProperties;
 import lombok.RequiredArgsConstructor;
 
 import lombok.extern.slf4j.Slf4j;
@@ -20,165 +29,105 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 public class RoleGraphQLService {
 
-    private final WebClient graphqlWebClient;
+    private final UpstreamGraphQLClient upstreamGraphQLClient;
+    private final RoleCache roleCache;
+    private final PagingProperties pagingProperties;
+    private final ChangeEvents changeEvents;
+    private final UserSnapshot userSnapshot;
+    private final BatchProperties batchProperties;
 
     public Flux<Role> getAllRoles() {
-        log.info("Fetching all roles");
-
-        String query = """
-                    query {
-                        getAllRoles {
-                            roleId
-                            name
-                        }
-                    }
-                """;
+        log.debug("Fetching all roles");
+        return roleCache.getAll(this::fetchAllRoles);
+    }
 
-        return executeListQuery("/getAllRolesFunctionGraphQL", query, "getAllRoles", Role.class);
+    public Mono<Connection<Role>> getRolesConnection(Integer first, String after) {
+        int pageSize = pagingProperties.limit(first);
+        return getAllRoles()
+                .collectList()
+                .map(roles -> Cursors.connection(roles, Role::getRoleId, after, pageSize, Long::valueOf));
+    }
+
+    // Roles written through this instance from now on, optionally only one of them
+    public Flux<ChangeEvent<Role>> roleChanges(Long roleId) {
+        Flux<ChangeEvent<Role>> changes = changeEvents.roles();
+        return roleId == null ? changes : changes.filter(change -> roleId.toString().equals(change.getId()));
     }
 
     public Mono<Role> getRoleById(Long roleId) {
-        log.info("Fetching role with ID: {}", roleId);
-
-        String query = String.format("""
-                    query {
-                        getRole(id: %d) {
-                            roleId
-                            name
-                        }
-                    }
-                """, roleId);
+        log.debug("Fetching role with ID: {}", roleId);
+        return roleCache.get(roleId, this::fetchRoleById);
+    }
 
-        return executeSingleQuery("/getRoleFunctionGraphQL", query, "getRole", Role.class);
+    private Flux<Role> fetchAllRoles() {
+        return upstreamGraphQLClient.executeList("/getAllRolesFunctionGraphQL", "getAllRoles", Map.of(),
+                Role.class);
+    }
+
+    private Mono<Role> fetchRoleById(Long roleId) {
+        return upstreamGraphQLClient.execute("/getRoleFunctionGraphQL", "getRole", Map.of("id", roleId),
+                Role.class);
     }
 
     public Mono<Role> createRole(Role role) {
-        log.info("Creating new role: {}", role);
-
-        String mutation = String.format("""
-                    mutation {
-                        saveRole(input: {
-                            name: "%s"
-                        }) {
-                            roleId
-                            name
-                        }
-                    }
-                """, role.getName());
+        log.debug("Creating new role: {}", role.getName());
 
-        return executeSingleQuery("/createRoleFunctionGraphQL", mutation, "saveRole", Role.class);
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put("name", role.getName());
+
+        return upstreamGraphQLClient.execute("/createRoleFunctionGraphQL", "saveRole", Map.of("input", input),
+                Role.class)
+                .doOnNext(roleCache::put)
+                .doOnNext(changeEvents::roleCreated);
     }
 
     public Mono<Role> updateRole(Long roleId, Map<String, Object> updates) {
-        log.info("Updating role with ID: {}, updates: {}", roleId, updates);
-
-        StringBuilder inputBuilder = new StringBuilder();
+        log.debug("Updating role with ID: {}, fields: {}", roleId, updates.keySet());
 
         // Only add name if it's present in the updates map
+        Map<String, Object> input = new LinkedHashMap<>();
         if (updates.containsKey("name")) {
-            inputBuilder.append(String.format("name: \"%s\"", updates.get("name")));
+            input.put("name", updates.get("name"));
         }
 
-        String mutation = String.format("""
-                    mutation {
-                        updateRole(id: %d, input: {
-                            %s
-                        }) {
-                            roleId
-                            name
-                        }
-                    }
-                """, roleId, inputBuilder.toString());
-
-        return executeSingleQuery("/updateRoleFunctionGraphQL", mutation, "updateRole", Role.class);
+        return upstreamGraphQLClient.execute("/updateRoleFunctionGraphQL", "updateRole",
+                Map.of("id", roleId, "input", input), Role.class)
+                .doOnNext(roleCache::put)
+                .doOnNext(changeEvents::roleUpdated);
     }
 
     public Mono<Boolean> deleteRole(Long roleId) {
-        log.info("Deleting role with ID: {}", roleId);
-
-        String mutation = String.format("""
-                    mutation {
-                        deleteRole(id: %d)
+        log.debug("Deleting role with ID: {}", roleId);
+        return upstreamGraphQLClient.execute("/deleteRoleFunctionGraphQL", "deleteRole", Map.of("id", roleId),
+                Boolean.class)
+                .doOnNext(deleted -> {
+                    if (deleted) {
+                        roleCache.evict(roleId);
+                        // The result does not say whether users were moved to another role, so assume they were
+                        userSnapshot.invalidate();
+                        changeEvents.roleDeleted(roleId);
                     }
-                """, roleId);
-
-        return executeSingleQuery("/deleteRoleFunctionGraphQL", mutation, "deleteRole", Boolean.class);
+                });
     }
 
-    private <T> Flux<T> executeListQuery(String uri, String query, String rootField, Class<T> type) {
-        return executeRawQuery(uri, query)
-                .map(data -> {
-                    if (data == null || data.get(rootField) == null) {
-                        log.error("No data returned for field: {}", rootField);
-                        throw new RuntimeException("No data returned from GraphQL service");
-                    }
-
-                    List<Map<String, Object>> resultList = (List<Map<String, Object>>) data.get(rootField);
-                    return resultList.stream()
-                            .map(item -> convertToType(item, type))
-                            .toList();
-                })
-                .flatMapMany(Flux::fromIterable)
-                .doOnError(e -> log.error("Error executing list query: {}", e.getMessage()));
+    public Flux<BatchResult<Role>> createRoles(List<Role> roles) {
+        batchProperties.check(roles.size());
+        return Batches.fanOut(roles, batchProperties.getConcurrency(), role -> null, this::createRole);
     }
 
-    private <T> Mono<T> executeSingleQuery(String uri, String query, String rootField, Class<T> type) {
-        return executeRawQuery(uri, query)
-                .doOnNext(data -> log.debug("Raw response data: {}", data))
-                .map(data -> {
-                    if (data == null || data.get(rootField) == null) {
-                        log.error("No data returned for field: {}", rootField);
-                        throw new RuntimeException("No data returned from GraphQL service");
-                    }
-                    return convertToType(data.get(rootField), type);
-                })
-                .doOnError(e -> log.error("Error executing query: {}", e.getMessage()))
-                .doOnNext(result -> log.debug("Converted result: {}", result));
+    // Each entry carries the role's id next to the fields to update
+    public Flux<BatchResult<Role>> updateRoles(List<Map<String, Object>> updates) {
+        batchProperties.check(updates.size());
+        return Batches.fanOut(updates, batchProperties.getConcurrency(), update -> update.get("id"),
+                update -> updateRole(Long.valueOf(update.get("id").toString()), update));
     }
 
-    private Mono<Map<String, Object>> executeRawQuery(String uri, String query) {
-        log.debug("Sending GraphQL to {}:\n{}", uri, query);
-
-        return graphqlWebClient.post()
-                .uri(uri)
-                .header("X-REQUEST-TYPE", "GraphQL")
-                .bodyValue(Map.of("query", query))
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {
-                })
-                .map(response -> {
-                    if (response.containsKey("errors")) {
-                        List<Map<String, Object>> errors = (List<Map<String, Object>>) response.get("errors");
-                        String errorMessage = errors.stream()
-                                .map(error -> error.get("message").toString())
-                                .reduce((a, b) -> a + "; " + b)
-                                .orElse("Unknown GraphQL error");
-                        log.error("GraphQL error: {}", errorMessage);
-                        throw new RuntimeException("GraphQL error: " + errorMessage);
-                    }
-                    return (Map<String, Object>) response.get("data");
-                })
-                .doOnError(e -> log.error("Error executing raw query: {}", e.getMessage()));
-    }
-
-    @SuppressWarnings("unchecked")
-    private <T> T convertToType(Object data, Class<T> type) {
-        if (data == null) {
-            return null;
-        }
-        if (type == Boolean.class) {
-            return (T) Boolean.valueOf(data.toString());
-        }
-        if (!(data instanceof Map)) {
-            throw new IllegalArgumentException("Data is not a Map");
-        }
-        Map<String, Object> dataMap = (Map<String, Object>) data;
-        if (type == Role.class) {
-            return (T) Role.builder()
-                    .roleId(dataMap.get("roleId") != null ? Long.valueOf(dataMap.get("roleId").toString()) : null)
-                    .name((String) dataMap.get("name"))
-                    .build();
-        }
-        throw new IllegalArgumentException("Unsupported conversion type: " + type.getName());
+    public Flux<BatchResult<Void>> deleteRoles(List<Long> roleIds) {
+        batchProperties.check(roleIds.size());
+        return Batches.fanOut(roleIds, batchProperties.getConcurrency(), roleId -> roleId,
+                roleId -> deleteRole(roleId)
+                        .flatMap(deleted -> deleted
+                                ? Mono.<Void>empty()
+                                : Mono.error(new IllegalStateException("Role was not deleted"))));
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,9 @@
 package dev.rm.service;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
@@ -9,7 +11,18 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import dev.rm.batch.BatchProperties;
+import dev.rm.batch.Batches;
+import dev.rm.cache.RoleCache;
+import dev.rm.cache.UserSnapshot;
+import dev.rm.events.ChangeEvents;
+import dev.rm.exception.UpstreamException;
+import dev.rm.model.BatchResult;
+import dev.rm.model.CursorPage;
 import dev.rm.model.Role;
+import dev.rm.paging.Cursors;
+import dev.rm.paging.PagingProperties;
+import dev.rm.resilience.UpstreamResilience;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -19,28 +32,86 @@ import reactor.core.publisher.Mono;
 public class RoleService {
 
     private final WebClient baseWebClient;
-
-    public RoleService(WebClient baseWebClient) {
+    private final RoleCache roleCache;
+    private final UpstreamResilience upstreamResilience;
+    private final PagingProperties pagingProperties;
+    private final ChangeEvents changeEvents;
+    private final UserSnapshot userSnapshot;
+    private final BatchProperties batchProperties;
+
+    public RoleService(WebClient baseWebClient, RoleCache roleCache, UpstreamResilience upstreamResilience,
+            PagingProperties pagingProperties, ChangeEvents changeEvents, UserSnapshot userSnapshot,
+            BatchProperties batchProperties) {
         this.baseWebClient = baseWebClient;
+        this.roleCache = roleCache;
+        this.upstreamResilience = upstreamResilience;
+        this.pagingProperties = pagingProperties;
+        this.changeEvents = changeEvents;
+        this.userSnapshot = userSnapshot;
+        this.batchProperties = batchProperties;
     }
 
     @Value("${azure.function.role.rest.prod.create-code}")
     private String createRoleCodeKey;
 
     public Flux<Role> getAllRoles() {
+        return roleCache.getAll(this::fetchAllRoles);
+    }
+
+    public Flux<Role> streamAllRoles() {
+        return roleCache.stream(this::fetchAllRoles);
+    }
+
+    public Mono<CursorPage<Role>> getRolesPage(String cursor, Integer limit) {
+        int pageSize = pagingProperties.limit(limit);
+        if (pagingProperties.isUpstreamRoles()) {
+            return fetchRolesPage(cursor, pageSize);
+        }
+        return getAllRoles()
+                .collectList()
+                .map(roles -> Cursors.page(roles, Role::getRoleId, cursor, pageSize, Long::valueOf));
+    }
+
+    public Mono<Role> getRole(Long roleId) {
+        return roleCache.get(roleId, this::fetchRole);
+    }
+
+    private Flux<Role> fetchAllRoles() {
         return baseWebClient.get()
                 .uri("/getAllRolesFunction")
+                .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
                 .retrieve()
                 .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
                         response -> response.bodyToMono(String.class)
                                 .flatMap(errorMessage -> {
                                     log.error("Error calling Azure Function: {}", errorMessage);
-                                    return Mono.error(new RuntimeException("Failed to fetch roles: " + errorMessage));
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to fetch roles: " + errorMessage));
                                 }))
-                .bodyToFlux(Role.class);
+                .bodyToFlux(Role.class)
+                .transform(roles -> upstreamResilience.readMany("getAllRoles", "getAllRolesFunction", roles));
     }
 
-    public Mono<Role> getRole(Long roleId) {
+    private Mono<CursorPage<Role>> fetchRolesPage(String cursor, int limit) {
+        return baseWebClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/getAllRolesFunction")
+                        .queryParam("limit", limit)
+                        .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                        .build())
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        response -> response.bodyToMono(String.class)
+                                .flatMap(errorMessage -> {
+                                    log.error("Error calling Azure Function: {}", errorMessage);
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to fetch roles: " + errorMessage));
+                                }))
+                .bodyToMono(new ParameterizedTypeReference<CursorPage<Role>>() {
+                })
+                .transform(page -> upstreamResilience.read("getAllRoles", "getAllRolesFunction", page));
+    }
+
+    private Mono<Role> fetchRole(Long roleId) {
         return baseWebClient.get()
                 .uri(uriBuilder -> uriBuilder.path("/getRoleFunction").queryParam("roleId", roleId)
                         .build())
@@ -49,14 +120,15 @@ public class RoleService {
                         response -> response.bodyToMono(String.class)
                                 .flatMap(errorMessage -> {
                                     log.error("Error calling Azure Function: {}", errorMessage);
-                                    return Mono.error(new RuntimeException("Failed to fetch role: " +
-                                            errorMessage));
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to fetch role: " + errorMessage));
                                 }))
-                .bodyToMono(Role.class);
+                .bodyToMono(Role.class)
+                .transform(role -> upstreamResilience.read("getRole", "getRoleFunction", role));
     }
 
     public Mono<Role> createRole(Role role) {
-        log.debug("Sending request to Azure Function to create role: {}", role);
+        log.debug("Sending request to Azure Function to create role: {}", role.getName());
         return baseWebClient.post()
                 .uri("/createRoleFunction")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -66,10 +138,15 @@ public class RoleService {
                         response -> response.bodyToMono(String.class)
                                 .flatMap(errorMessage -> {
                                     log.error("Error calling Azure Function: {}", errorMessage);
-                                    return Mono.error(new RuntimeException("Failed to create role: " + errorMessage));
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to create role: " + errorMessage));
                                 }))
                 .bodyToMono(Role.class) // ✅ deserialize directly to Role
-                .doOnSuccess(createdRole -> log.info("Role created successfully: {}", createdRole));
+                .doOnSuccess(createdRole -> log.atInfo().setMessage("Role created")
+                        .addKeyValue("roleId", createdRole != null ? createdRole.getRoleId() : null).log())
+                .transform(created -> upstreamResilience.write("createRole", "createRoleFunction", created))
+                .doOnNext(roleCache::put)
+                .doOnNext(changeEvents::roleCreated);
     }
 
     public Mono<Role> updateRole(Long roleId, Role role) {
@@ -83,10 +160,13 @@ public class RoleService {
                         response -> response.bodyToMono(String.class)
                                 .flatMap(errorMessage -> {
                                     log.error("Error calling Azure Function: {}", errorMessage);
-                                    return Mono.error(new RuntimeException("Failed to update role: " +
-                                            errorMessage));
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to update role: " + errorMessage));
                                 }))
-                .bodyToMono(Role.class);
+                .bodyToMono(Role.class)
+                .transform(updated -> upstreamResilience.write("updateRole", "updateRoleFunction", updated))
+                .doOnNext(roleCache::put)
+                .doOnNext(changeEvents::roleUpdated);
     }
 
     public Mono<Map<String, String>> deleteRole(Long roleId) {
@@ -97,7 +177,8 @@ public class RoleService {
                         .build())
                 .exchangeToMono(response -> {
                     int statusCode = response.statusCode().value();
-                    log.info(":::::::::::>>>>>>>>>>> Delete role response status code: {}", statusCode);
+                    log.atInfo().setMessage("Delete role response").addKeyValue("roleId", roleId)
+                            .addKeyValue("status", statusCode).log();
 
                     if (statusCode == 204) {
                         Map<String, String> successMap = new HashMap<>();
@@ -107,6 +188,8 @@ public class RoleService {
                     }
 
                     if (statusCode == 200) {
+                        // The function moved the role's users to another role
+                        userSnapshot.invalidate();
                         Map<String, String> successMap = new HashMap<>();
                         successMap.put("message", "Role deleted successfully after reassigning users.");
                         successMap.put("status", "SUCCESS");
@@ -117,15 +200,40 @@ public class RoleService {
                         return response.bodyToMono(String.class)
                                 .flatMap(body -> {
                                     log.error("Azure Function returned error: {}", body);
-                                    return Mono.error(new RuntimeException("Failed to delete role: " + body));
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to delete role: " + body));
                                 });
                     }
 
                     return response.bodyToMono(new ParameterizedTypeReference<Map<String, String>>() {
                     })
-                            .doOnNext(resp -> log.info("Delete role response: {}", resp));
+                            .doOnNext(resp -> log.debug("Delete role response: {}", resp));
                 })
-                .onErrorResume(SilentSuccessException.class, ex -> Mono.just(ex.getResponseMap()));
+                .onErrorResume(SilentSuccessException.class, ex -> Mono.just(ex.getResponseMap()))
+                .transform(deleted -> upstreamResilience.write("deleteRole", "deleteRoleFunction", deleted))
+                .doOnNext(resp -> {
+                    roleCache.evict(roleId);
+                    changeEvents.roleDeleted(roleId);
+                });
+    }
+
+    public Flux<BatchResult<Role>> createRoles(List<Role> roles) {
+        batchProperties.check(roles.size());
+        return Batches.fanOut(roles, batchProperties.getConcurrency(), role -> null, this::createRole);
+    }
+
+    public Flux<BatchResult<Role>> updateRoles(List<Role> roles) {
+        batchProperties.check(roles.size());
+        return Batches.fanOut(roles, batchProperties.getConcurrency(), Role::getRoleId,
+                role -> role.getRoleId() == null
+                        ? Mono.error(new IllegalArgumentException("roleId is required"))
+                        : updateRole(role.getRoleId(), role));
+    }
+
+    // Each item carries deleteRole's response, which says whether users were reassigned
+    public Flux<BatchResult<Map<String, String>>> deleteRoles(List<Long> roleIds) {
+        batchProperties.check(roleIds.size());
+        return Batches.fanOut(roleIds, batchProperties.getConcurrency(), roleId -> roleId, this::deleteRole);
     }
 
     // Custom signal class
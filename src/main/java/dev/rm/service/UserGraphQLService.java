@@ -1,17 +1,25 @@
 package dev.rm.service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 
-import org.springframework.web.reactive.function.client.WebClient;
-
-import dev.rm.model.Role;
+import dev.rm.batch.BatchProperties;
+import dev.rm.batch.Batches;
+import dev.rm.cache.RequestCoalescer;
+import dev.rm.cache.UserSnapshot;
+import dev.rm.events.ChangeEvents;
+import dev.rm.exception.UpstreamException;
+import dev.rm.graphql.UpstreamGraphQLClient;
+import dev.rm.model.BatchResult;
+import dev.rm.model.ChangeEvent;
+import dev.rm.model.Connection;
 import dev.rm.model.User;
-import lombok.RequiredArgsConstructor;
+import dev.rm.paging.Cursors;
+import dev.rm.paging.PagingProperties;
 
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
@@ -19,224 +27,148 @@ import reactor.core.publisher.Mono;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class UserGraphQLService {
 
-    private final WebClient graphqlWebClient;
-
-    public Flux<User> getAllUsers() {
-        log.info("Fetching all users");
-
-        String query = """
-                    query {
-                        getAllUsers {
-                            userId
-                            username
-                            email
-                            role {
-                                roleId
-                                name
-                            }
-                        }
-                    }
-                """;
-
-        return executeListQuery("/getAllUsersFunctionGraphQL", query, "getAllUsers", User.class);
+    private static final List<String> UPDATABLE_FIELDS = List.of("username", "email", "password", "roleId");
+
+    private final UpstreamGraphQLClient upstreamGraphQLClient;
+    private final RequestCoalescer requestCoalescer;
+    private final PagingProperties pagingProperties;
+    private final BatchProperties batchProperties;
+    private final ChangeEvents changeEvents;
+    private final UserSnapshot userSnapshot;
+
+    public UserGraphQLService(UpstreamGraphQLClient upstreamGraphQLClient, RequestCoalescer requestCoalescer,
+            PagingProperties pagingProperties, BatchProperties batchProperties, ChangeEvents changeEvents,
+            UserSnapshot userSnapshot) {
+        this.upstreamGraphQLClient = upstreamGraphQLClient;
+        this.requestCoalescer = requestCoalescer;
+        this.pagingProperties = pagingProperties;
+        this.batchProperties = batchProperties;
+        this.changeEvents = changeEvents;
+        this.userSnapshot = userSnapshot;
     }
 
-    public Mono<User> getUserById(UUID userId) {
-        log.info("Fetching user with ID: {}", userId);
-
-        String query = String.format("""
-                    query {
-                        getUser(id: "%s") {
-                            userId
-                            username
-                            email
-                            role {
-                                roleId
-                                name
-                            }
-                        }
-                    }
-                """, userId);
+    public Mono<Connection<User>> getUsersConnection(Integer first, String after) {
+        int pageSize = pagingProperties.limit(first);
+        return userSnapshot.get()
+                .map(users -> Cursors.connection(users, after, pageSize, UUID::fromString));
+    }
 
-        return executeSingleQuery("/getUserFunctionGraphQL", query, "getUser", User.class);
+    public Flux<User> getUsersByRole(Long roleId) {
+        return userSnapshot.byRole(roleId);
     }
 
-    public Mono<User> createUser(User user) {
-        log.info("Creating new user: {}", user);
-
-        String mutation = String.format("""
-                    mutation {
-                        saveUser(input: {
-                            username: "%s"
-                            email: "%s"
-                            password: "%s"
-                            roleId: %d
-                        }) {
-                            userId
-                            username
-                            email
-                            password
-                        }
-                    }
-                """, user.getUsername(), user.getEmail(), user.getPassword(),
-                user.getRole().getRoleId());
+    public Mono<User> getUserByEmail(String email) {
+        return userSnapshot.byEmail(email);
+    }
 
-        return executeSingleQuery("/createUserFunctionGraphQL", mutation, "saveUser", User.class);
+    public Flux<User> searchUsers(String prefix, Integer limit) {
+        int pageSize = pagingProperties.limit(limit);
+        return userSnapshot.byUsernamePrefix(prefix, pageSize);
     }
 
-    public Mono<User> updateUser(UUID userId, Map<String, Object> updates) {
-        log.info("Updating user with ID: {}, updates: {}", userId, updates);
+    // Users written through this instance from now on, optionally only one of them
+    public Flux<ChangeEvent<User>> userChanges(UUID userId) {
+        Flux<ChangeEvent<User>> changes = changeEvents.users();
+        return userId == null ? changes : changes.filter(change -> userId.toString().equals(change.getId()));
+    }
 
-        StringBuilder inputBuilder = new StringBuilder();
+    public Flux<User> getAllUsers() {
+        log.debug("Fetching all users");
+        return userSnapshot.getAll();
+    }
 
-        // Only add fields that are present in the updates map
-        if (updates.containsKey("username")) {
-            inputBuilder.append(String.format("username: \"%s\"", updates.get("username")));
-        }
+    public Mono<User> getUserById(UUID userId) {
+        log.debug("Fetching user with ID: {}", userId);
+        return requestCoalescer.coalesce("graphql:getUser", userId, () -> fetchUserById(userId));
+    }
 
-        if (updates.containsKey("email")) {
-            if (inputBuilder.length() > 0)
-                inputBuilder.append("\n        ");
-            inputBuilder.append(String.format("email: \"%s\"", updates.get("email")));
-        }
+    // Same lookup order as UserService.getUsers, and like it leaves out ids upstream does not know
+    public Flux<User> getUsers(List<UUID> userIds) {
+        batchProperties.check(userIds.size());
+        return Batches.multiGet(userIds, batchProperties.getConcurrency(), userSnapshot::cached,
+                userId -> getUserById(userId)
+                        .onErrorResume(UpstreamException.class, e -> e.getStatusCode().value() == 404
+                                ? Mono.empty()
+                                : Mono.error(e)));
+    }
 
-        if (updates.containsKey("password")) {
-            if (inputBuilder.length() > 0)
-                inputBuilder.append("\n        ");
-            inputBuilder.append(String.format("password: \"%s\"", updates.get("password")));
-        }
+    private Mono<User> fetchUserById(UUID userId) {
+        return upstreamGraphQLClient.execute("/getUserFunctionGraphQL", "getUser",
+                Map.of("id", userId.toString()), User.class);
+    }
 
-        if (updates.containsKey("roleId")) {
-            if (inputBuilder.length() > 0)
-                inputBuilder.append("\n        ");
-            inputBuilder.append(String.format("roleId: %s", updates.get("roleId")));
+    public Mono<User> createUser(User user) {
+        log.debug("Creating new user: {}", user.getUsername());
+
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put("username", user.getUsername());
+        input.put("email", user.getEmail());
+        input.put("password", user.getPassword());
+        if (user.getRole() != null && user.getRole().getRoleId() != null) {
+            input.put("roleId", user.getRole().getRoleId());
         }
 
-        String mutation = String.format("""
-                    mutation {
-                        updateUser(id: "%s", input: {
-                            %s
-                        }) {
-                            userId
-                            username
-                            email
-                            role {
-                                roleId
-                                name
-                            }
-                        }
-                    }
-                """, userId, inputBuilder.toString());
-
-        return executeSingleQuery("/updateUserFunctionGraphQL", mutation, "updateUser", User.class);
+        return upstreamGraphQLClient.execute("/createUserFunctionGraphQL", "saveUser", Map.of("input", input),
+                User.class)
+                .doOnNext(userSnapshot::upsert)
+                .doOnNext(changeEvents::userCreated);
     }
 
-    public Mono<Boolean> deleteUser(UUID userId) {
-        log.info("Deleting user with ID: {}", userId);
-
-        String mutation = String.format("""
-                    mutation {
-                        deleteUser(id: "%s")
-                    }
-                """, userId);
-
-        return executeSingleQuery("/deleteUserFunctionGraphQL", mutation, "deleteUser", Boolean.class);
+    public Flux<BatchResult<User>> createUsers(List<User> users) {
+        batchProperties.check(users.size());
+        return Batches.fanOut(users, batchProperties.getConcurrency(), user -> null, this::createUser);
     }
 
-    private <T> Flux<T> executeListQuery(String uri, String query, String rootField, Class<T> type) {
-        return executeRawQuery(uri, query)
-                .map(data -> {
-                    if (data == null || data.get(rootField) == null) {
-                        log.error("No data returned for field: {}", rootField);
-                        throw new RuntimeException("No data returned from GraphQL service");
-                    }
-
-                    List<Map<String, Object>> resultList = (List<Map<String, Object>>) data.get(rootField);
-                    return resultList.stream()
-                            .map(item -> convertToType(item, type))
-                            .toList();
-                })
-                .flatMapMany(Flux::fromIterable)
-                .doOnError(e -> log.error("Error executing list query: {}", e.getMessage()));
-    }
-
-    private <T> Mono<T> executeSingleQuery(String uri, String query, String rootField, Class<T> type) {
-        return executeRawQuery(uri, query)
-                .doOnNext(data -> log.debug("Raw response data: {}", data))
-                .map(data -> {
-                    if (data == null || data.get(rootField) == null) {
-                        log.error("No data returned for field: {}", rootField);
-                        throw new RuntimeException("No data returned from GraphQL service");
-                    }
-                    return convertToType(data.get(rootField), type);
-                })
-                .doOnError(e -> log.error("Error executing query: {}", e.getMessage()))
-                .doOnNext(result -> log.debug("Converted result: {}", result));
-    }
-
-    private Mono<Map<String, Object>> executeRawQuery(String uri, String query) {
-        log.debug("Sending GraphQL to {}:\n{}", uri, query);
-
-        return graphqlWebClient.post()
-                .uri(uri)
-                .header("X-REQUEST-TYPE", "GraphQL")
-                .bodyValue(Map.of("query", query))
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {
-                })
-                .map(response -> {
-                    if (response.containsKey("errors")) {
-                        List<Map<String, Object>> errors = (List<Map<String, Object>>) response.get("errors");
-                        String errorMessage = errors.stream()
-                                .map(error -> error.get("message").toString())
-                                .reduce((a, b) -> a + "; " + b)
-                                .orElse("Unknown GraphQL error");
-                        log.error("GraphQL error: {}", errorMessage);
-                        throw new RuntimeException("GraphQL error: " + errorMessage);
-                    }
-                    return (Map<String, Object>) response.get("data");
-                })
-                .doOnError(e -> log.error("Error executing raw query: {}", e.getMessage()));
+    // Each entry carries the user's id next to the fields to update
+    public Flux<BatchResult<User>> updateUsers(List<Map<String, Object>> updates) {
+        batchProperties.check(updates.size());
+        return Batches.fanOut(updates, batchProperties.getConcurrency(), update -> update.get("id"),
+                update -> updateUser(UUID.fromString(update.get("id").toString()), update));
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> T convertToType(Object data, Class<T> type) {
-        if (data == null) {
-            return null;
-        }
+    public Flux<BatchResult<Void>> deleteUsers(List<UUID> userIds) {
+        batchProperties.check(userIds.size());
+        return Batches.fanOut(userIds, batchProperties.getConcurrency(), userId -> userId,
+                userId -> deleteUser(userId)
+                        .flatMap(deleted -> deleted
+                                ? Mono.<Void>empty()
+                                : Mono.error(new IllegalStateException("User was not deleted"))));
+    }
 
-        if (type == Boolean.class) {
-            return (T) Boolean.valueOf(data.toString());
-        }
+    public Mono<User> updateUser(UUID userId, Map<String, Object> updates) {
+        log.debug("Updating user with ID: {}, fields: {}", userId, updates.keySet());
 
-        if (!(data instanceof Map)) {
-            throw new IllegalArgumentException("Data is not a Map");
-        }
+        return upstreamGraphQLClient.execute("/updateUserFunctionGraphQL", "updateUser",
+                updateUserVariables(userId, updates), User.class)
+                .doOnNext(userSnapshot::upsert)
+                .doOnNext(changeEvents::userUpdated);
+    }
 
-        Map<String, Object> dataMap = (Map<String, Object>) data;
-
-        if (type == User.class) {
-            Map<String, Object> roleMap = (Map<String, Object>) dataMap.get("role");
-
-            Role role = Role.builder()
-                    .roleId(roleMap != null && roleMap.get("roleId") != null
-                            ? Long.valueOf(roleMap.get("roleId").toString())
-                            : null)
-                    .name(roleMap != null ? (String) roleMap.get("name") : null)
-                    .build();
-
-            return (T) User.builder()
-                    .userId(dataMap.get("userId") != null ? UUID.fromString(dataMap.get("userId").toString()) : null)
-                    .username((String) dataMap.get("username"))
-                    .email((String) dataMap.get("email"))
-                    .password((String) dataMap.get("password"))
-                    .role(role)
-                    .build();
+    /**
+     * The {@code updateUser} variables, sending only the fields present in
+     * {@code updates}.
+     */
+    public static Map<String, Object> updateUserVariables(UUID userId, Map<String, Object> updates) {
+        Map<String, Object> input = new LinkedHashMap<>();
+        for (String field : UPDATABLE_FIELDS) {
+            if (updates.containsKey(field)) {
+                input.put(field, updates.get(field));
+            }
         }
+        return Map.of("id", userId.toString(), "input", input);
+    }
 
-        throw new IllegalArgumentException("Unsupported conversion type: " + type.getName());
+    public Mono<Boolean> deleteUser(UUID userId) {
+        log.debug("Deleting user with ID: {}", userId);
+        return upstreamGraphQLClient.execute("/deleteUserFunctionGraphQL", "deleteUser",
+                Map.of("id", userId.toString()), Boolean.class)
+                .doOnNext(deleted -> {
+                    if (deleted) {
+                        userSnapshot.remove(userId);
+                        changeEvents.userDeleted(userId);
+                    }
+                });
     }
-}
\ No newline at end of file
+}
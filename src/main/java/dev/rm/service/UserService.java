@@ -1,9 +1,12 @@
 package dev.rm.service;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -12,7 +15,18 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import dev.rm.batch.BatchProperties;
+import dev.rm.batch.Batches;
+import dev.rm.cache.RequestCoalescer;
+import dev.rm.cache.UserSnapshot;
+import dev.rm.events.ChangeEvents;
+import dev.rm.exception.UpstreamException;
+import dev.rm.model.BatchResult;
+import dev.rm.model.CursorPage;
 import dev.rm.model.User;
+import dev.rm.paging.Cursors;
+import dev.rm.paging.PagingProperties;
+import dev.rm.resilience.UpstreamResilience;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -26,37 +40,113 @@ public class UserService {
     private final WebClient updateUserWebClient;
     private final WebClient deleteUserWebClient;
     private final WebClient getUserWebClient;
+    private final RequestCoalescer requestCoalescer;
+    private final UpstreamResilience upstreamResilience;
+    private final PagingProperties pagingProperties;
+    private final BatchProperties batchProperties;
+    private final ChangeEvents changeEvents;
+    private final UserSnapshot userSnapshot;
 
     public UserService(
             @Qualifier("baseWebClient") WebClient baseWebClient,
             @Qualifier("createUserWebClient") WebClient createUserWebClient,
             @Qualifier("updateUserWebClient") WebClient updateUserWebClient,
             @Qualifier("deleteUserWebClient") WebClient deleteUserWebClient,
-            @Qualifier("getUserWebClient") WebClient getUserWebClient) {
+            @Qualifier("getUserWebClient") WebClient getUserWebClient,
+            RequestCoalescer requestCoalescer,
+            UpstreamResilience upstreamResilience,
+            PagingProperties pagingProperties,
+            BatchProperties batchProperties,
+            ChangeEvents changeEvents,
+            UserSnapshot userSnapshot) {
         this.baseWebClient = baseWebClient;
         this.createUserWebClient = createUserWebClient;
         this.updateUserWebClient = updateUserWebClient;
         this.deleteUserWebClient = deleteUserWebClient;
         this.getUserWebClient = getUserWebClient;
+        this.requestCoalescer = requestCoalescer;
+        this.upstreamResilience = upstreamResilience;
+        this.pagingProperties = pagingProperties;
+        this.batchProperties = batchProperties;
+        this.changeEvents = changeEvents;
+        this.userSnapshot = userSnapshot;
     }
 
     @Value("${azure.function.user.rest.prod.create-code}")
     private String createUserCodeKey;
 
     public Flux<User> getAllUsers() {
+        return userSnapshot.getAll();
+    }
+
+    /**
+     * The same snapshot as {@link #getAllUsers()}, so the JSON list and the
+     * NDJSON/SSE stream never disagree about which users exist.
+     */
+    public Flux<User> streamAllUsers() {
+        return userSnapshot.getAll();
+    }
+
+    public Flux<User> getUsersByRole(Long roleId) {
+        return userSnapshot.byRole(roleId);
+    }
+
+    public Mono<User> getUserByEmail(String email) {
+        return userSnapshot.byEmail(email);
+    }
+
+    public Flux<User> searchUsersByUsername(String prefix, Integer limit) {
+        int pageSize = pagingProperties.limit(limit);
+        return userSnapshot.byUsernamePrefix(prefix, pageSize);
+    }
+
+    public Mono<CursorPage<User>> getUsersPage(String cursor, Integer limit) {
+        int pageSize = pagingProperties.limit(limit);
+        if (pagingProperties.isUpstreamUsers()) {
+            return fetchUsersPage(cursor, pageSize);
+        }
+        return userSnapshot.get()
+                .map(users -> Cursors.page(users, cursor, pageSize, UUID::fromString));
+    }
+
+    private Mono<CursorPage<User>> fetchUsersPage(String cursor, int limit) {
         return baseWebClient.get()
-                .uri("/getAllUsersFunction")
+                .uri(uriBuilder -> uriBuilder.path("/getAllUsersFunction")
+                        .queryParam("limit", limit)
+                        .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                        .build())
                 .retrieve()
                 .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
                         response -> response.bodyToMono(String.class)
                                 .flatMap(errorMessage -> {
                                     log.error("Error calling Azure Function: {}", errorMessage);
-                                    return Mono.error(new RuntimeException("Failed to fetch users: " + errorMessage));
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to fetch users: " + errorMessage));
                                 }))
-                .bodyToFlux(User.class);
+                .bodyToMono(new ParameterizedTypeReference<CursorPage<User>>() {
+                })
+                .transform(page -> upstreamResilience.read("getAllUsers", "getAllUsersFunction", page));
     }
 
     public Mono<User> getUserById(UUID userId) {
+        return requestCoalescer.coalesce("rest:getUser", userId, () -> fetchUserById(userId));
+    }
+
+    /**
+     * Users for the given ids in request order, each id looked up once.
+     * Ids are answered from the snapshot while it is fresh; the rest go to
+     * getUserFunction. Ids upstream does not know are left out.
+     */
+    public Flux<User> getUsers(List<UUID> userIds) {
+        batchProperties.check(userIds.size());
+        return Batches.multiGet(userIds, batchProperties.getConcurrency(), userSnapshot::cached,
+                userId -> getUserById(userId)
+                        .onErrorResume(UpstreamException.class, e -> e.getStatusCode().value() == 404
+                                ? Mono.empty()
+                                : Mono.error(e)));
+    }
+
+    private Mono<User> fetchUserById(UUID userId) {
         return baseWebClient.get()
                 .uri(uriBuilder -> uriBuilder.path("/getUserFunction").queryParam("userId", userId)
                         .build())
@@ -65,14 +155,15 @@ public class UserService {
                         response -> response.bodyToMono(String.class)
                                 .flatMap(errorMessage -> {
                                     log.error("Error calling Azure Function: {}", errorMessage);
-                                    return Mono.error(new RuntimeException("Failed to fetch user: " +
-                                            errorMessage));
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to fetch user: " + errorMessage));
                                 }))
-                .bodyToMono(User.class);
+                .bodyToMono(User.class)
+                .transform(user -> upstreamResilience.read("getUser", "getUserFunction", user));
     }
 
     public Mono<User> createUser(User user) {
-        log.debug("Sending request to Azure Function: {}", user);
+        log.debug("Sending request to Azure Function to create user: {}", user.getUsername());
         return baseWebClient.post()
                 .uri("createUserFunction")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -82,11 +173,11 @@ public class UserService {
                         response -> response.bodyToMono(String.class)
                                 .flatMap(errorMessage -> {
                                     log.error("Error calling Azure Function: {}", errorMessage);
-                                    return Mono.error(new RuntimeException("Failed to create user: " + errorMessage));
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to create user: " + errorMessage));
                                 }))
                 .bodyToMono(JsonNode.class)
                 .map(json -> {
-                    log.info("Function response: {}", json.toPrettyString());
                     ObjectMapper mapper = new ObjectMapper();
                     JsonNode userNode = json.get("user");
                     try {
@@ -94,7 +185,76 @@ public class UserService {
                     } catch (JsonProcessingException e) {
                         throw new RuntimeException("Failed to parse user from function response", e);
                     }
-                });
+                })
+                .transform(created -> upstreamResilience.write("createUser", "createUserFunction", created))
+                .doOnNext(userSnapshot::upsert)
+                .doOnNext(changeEvents::userCreated);
+    }
+
+    public Flux<BatchResult<User>> createUsers(List<User> users) {
+        batchProperties.check(users.size());
+        if (batchProperties.isUpstreamCreateUsers()) {
+            return createUsersInChunks(users);
+        }
+        return Batches.fanOut(users, batchProperties.getConcurrency(), user -> null, this::createUser);
+    }
+
+    /**
+     * Sends the users to createUsersFunction in chunks. A failed chunk is
+     * reported as a failure of each of its items.
+     */
+    private Flux<BatchResult<User>> createUsersInChunks(List<User> users) {
+        int chunkSize = batchProperties.getUpstreamChunkSize();
+        return Flux.range(0, (users.size() + chunkSize - 1) / chunkSize)
+                .flatMap(chunk -> {
+                    int from = chunk * chunkSize;
+                    List<User> slice = users.subList(from, Math.min(from + chunkSize, users.size()));
+                    return createUsersChunk(slice)
+                            .flatMapIterable(created -> created)
+                            .index((offset, created) -> BatchResult.success(from + offset.intValue(),
+                                    created.getUserId(), created))
+                            .onErrorResume(e -> Flux.range(from, slice.size())
+                                    .map(index -> BatchResult.<User>failure(index, null, e.getMessage())));
+                }, batchProperties.getConcurrency());
+    }
+
+    private Mono<List<User>> createUsersChunk(List<User> users) {
+        return baseWebClient.post()
+                .uri("/createUsersFunction")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(users)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        response -> response.bodyToMono(String.class)
+                                .flatMap(errorMessage -> {
+                                    log.error("Error calling Azure Function: {}", errorMessage);
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to create users: " + errorMessage));
+                                }))
+                .bodyToMono(CreatedUsers.class)
+                .flatMap(created -> created.users() != null && created.users().size() == users.size()
+                        ? Mono.just(created.users())
+                        : Mono.error(new IllegalStateException("createUsersFunction returned "
+                                + (created.users() == null ? 0 : created.users().size()) + " of "
+                                + users.size() + " users")))
+                .transform(created -> upstreamResilience.write("createUsers", "createUsersFunction", created))
+                .doOnNext(created -> created.forEach(user -> {
+                    userSnapshot.upsert(user);
+                    changeEvents.userCreated(user);
+                }));
+    }
+
+    public Flux<BatchResult<User>> updateUsers(List<User> users) {
+        batchProperties.check(users.size());
+        return Batches.fanOut(users, batchProperties.getConcurrency(), User::getUserId,
+                user -> user.getUserId() == null
+                        ? Mono.error(new IllegalArgumentException("userId is required"))
+                        : updateUser(user.getUserId(), user));
+    }
+
+    public Flux<BatchResult<Void>> deleteUsers(List<UUID> userIds) {
+        batchProperties.check(userIds.size());
+        return Batches.fanOut(userIds, batchProperties.getConcurrency(), userId -> userId, this::deleteUser);
     }
 
     public Mono<User> updateUser(UUID userId, User user) {
@@ -108,11 +268,15 @@ public class UserService {
                         response -> response.bodyToMono(String.class)
                                 .flatMap(errorMessage -> {
                                     log.error("Error calling Azure Function: {}", errorMessage);
-                                    return Mono.error(new RuntimeException("Failed to update user: " + errorMessage));
+                                    return Mono.error(new UpstreamException(response.statusCode(),
+                                            "Failed to update user: " + errorMessage));
                                 }))
                 .bodyToMono(User.class)
-                .doOnSuccess(updatedUser -> log.info("User updated successfully: {}", updatedUser))
-                .doOnError(error -> log.error("Error updating user: {}", error.getMessage()));
+                .doOnSuccess(updatedUser -> log.atInfo().setMessage("User updated").addKeyValue("userId", userId).log())
+                .doOnError(error -> log.error("Error updating user: {}", error.getMessage()))
+                .transform(updated -> upstreamResilience.write("updateUser", "updateUserFunction", updated))
+                .doOnNext(userSnapshot::upsert)
+                .doOnNext(changeEvents::userUpdated);
     }
 
     public Mono<Void> deleteUser(UUID userId) {
@@ -122,7 +286,14 @@ public class UserService {
                         .build())
                 .retrieve()
                 .toBodilessEntity()
-                .then();
+                .then()
+                .transform(deleted -> upstreamResilience.write("deleteUser", "deleteUserFunction", deleted))
+                .doOnSuccess(deleted -> {
+                    userSnapshot.remove(userId);
+                    changeEvents.userDeleted(userId);
+                });
     }
 
+    private record CreatedUsers(List<User> users) {
+    }
 }
@@ -0,0 +1,101 @@
+package dev.rm.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import dev.rm.model.BatchResult;
+import reactor.core.publisher.Mono;
+
+class BatchesTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    void fanOutReportsFailedItemsWithoutFailingTheBatch() {
+        List<BatchResult<String>> results = Batches.fanOut(List.of(1, 2, 3), 2, item -> "id-" + item,
+                item -> item == 2
+                        ? Mono.<String>error(new IllegalStateException("rejected"))
+                        : item == 3 ? Mono.<String>empty() : Mono.just("item-" + item))
+                .collectSortedList((a, b) -> Integer.compare(a.getIndex(), b.getIndex()))
+                .block(TIMEOUT);
+
+        assertThat(results).extracting(BatchResult::getIndex, BatchResult::getStatus, BatchResult::getId,
+                BatchResult::getItem, BatchResult::getError)
+                .containsExactly(
+                        tuple(0, BatchResult.SUCCESS, "id-1", "item-1", null),
+                        tuple(1, BatchResult.ERROR, "id-2", null, "rejected"),
+                        tuple(2, BatchResult.SUCCESS, "id-3", null, null));
+    }
+
+    @Test
+    void fanOutEmitsInCompletionOrder() {
+        List<Integer> indexes = Batches.fanOut(List.of(60, 0, 30), 3, item -> null,
+                item -> Mono.just(item).delayElement(Duration.ofMillis(item)))
+                .map(BatchResult::getIndex)
+                .collectList()
+                .block(TIMEOUT);
+
+        assertThat(indexes).containsExactly(1, 2, 0);
+    }
+
+    @Test
+    void fanOutKeepsAtMostConcurrencyCallsInFlight() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        Batches.fanOut(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), 3, item -> item,
+                item -> Mono.defer(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return Mono.just(item).delayElement(Duration.ofMillis(5));
+                }).doOnTerminate(inFlight::decrementAndGet))
+                .blockLast(TIMEOUT);
+
+        assertThat(maxInFlight).hasValue(3);
+    }
+
+    @Test
+    void multiGetLooksUpEachKeyOnceAndKeepsRequestOrder() {
+        Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+
+        List<String> values = Batches.multiGet(List.of("slow", "cached", "fast", "slow", "missing"), 4,
+                key -> "cached".equals(key) ? Optional.of("cached-value") : Optional.empty(),
+                key -> {
+                    fetches.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+                    return switch (key) {
+                        case "slow" -> Mono.just("slow-value").delayElement(Duration.ofMillis(50));
+                        case "fast" -> Mono.just("fast-value");
+                        default -> Mono.empty();
+                    };
+                })
+                .collectList()
+                .block(TIMEOUT);
+
+        assertThat(values).containsExactly("slow-value", "cached-value", "fast-value");
+        assertThat(fetches).containsOnlyKeys("slow", "fast", "missing");
+        assertThat(fetches.values()).allSatisfy(count -> assertThat(count).hasValue(1));
+    }
+
+    @Test
+    void multiGetKeepsAtMostConcurrencyFetchesInFlight() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        Batches.multiGet(List.of(1, 2, 3, 4, 5, 6, 7, 8), 2, key -> Optional.<Integer>empty(),
+                key -> Mono.defer(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return Mono.just(key).delayElement(Duration.ofMillis(5));
+                }).doOnTerminate(inFlight::decrementAndGet))
+                .blockLast(TIMEOUT);
+
+        assertThat(maxInFlight).hasValue(2);
+    }
+}
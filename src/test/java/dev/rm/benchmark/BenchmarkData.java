@@ -0,0 +1,38 @@
+package dev.rm.benchmark;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import dev.rm.model.Role;
+import dev.rm.model.User;
+
+/**
+ * Deterministic users and roles shaped like the Azure Function payloads.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static List<Role> roles(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Role.builder()
+                        .roleId((long) i + 1)
+                        .name("ROLE_" + i)
+                        .build())
+                .toList();
+    }
+
+    static List<User> users(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> User.builder()
+                        .userId(new UUID(0x6f1c2a8e4b7d4c11L, i))
+                        .username("user" + i)
+                        .email("user" + i + "@example.com")
+                        .password("secret-" + i)
+                        .role(Role.builder().roleId((long) (i % 5) + 1).build())
+                        .build())
+                .toList();
+    }
+}
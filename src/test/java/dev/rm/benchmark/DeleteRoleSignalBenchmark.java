@@ -0,0 +1,52 @@
+package dev.rm.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.rm.service.RoleService.SilentSuccessException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cost of {@code RoleService.deleteRole} reporting success through
+ * {@link SilentSuccessException} and {@code onErrorResume}, compared with
+ * emitting the same response map as a value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeleteRoleSignalBenchmark {
+
+    @Benchmark
+    public Map<String, String> exceptionSignal() {
+        return Mono.<Map<String, String>>defer(() -> Mono.error(new SilentSuccessException(successMap())))
+                .onErrorResume(SilentSuccessException.class, ex -> Mono.just(ex.getResponseMap()))
+                .block();
+    }
+
+    @Benchmark
+    public Map<String, String> valueSignal() {
+        return Mono.defer(() -> Mono.just(successMap()))
+                .block();
+    }
+
+    private static Map<String, String> successMap() {
+        Map<String, String> successMap = new HashMap<>();
+        successMap.put("message", "Role deleted successfully. No users required reassignment.");
+        successMap.put("status", "SUCCESS");
+        return successMap;
+    }
+}
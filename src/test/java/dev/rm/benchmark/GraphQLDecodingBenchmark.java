@@ -0,0 +1,73 @@
+package dev.rm.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.rm.graphql.UpstreamResponseDecoder;
+import dev.rm.model.User;
+
+/**
+ * Decoding of an upstream {@code getAllUsers} GraphQL response.
+ * {@code streamingDecode} is the path the services use; {@code mapTreeDecode}
+ * reads the body into maps first and converts afterwards, which is what the
+ * services did before responses were bound directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphQLDecodingBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int users;
+
+    private ObjectMapper objectMapper;
+    private UpstreamResponseDecoder decoder;
+    private JavaType userList;
+    private byte[] response;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        decoder = new UpstreamResponseDecoder(objectMapper);
+        userList = decoder.listOf(User.class);
+        response = objectMapper.writeValueAsBytes(
+                Map.of("data", Map.of("getAllUsers", BenchmarkData.users(users))));
+    }
+
+    @Benchmark
+    public List<User> streamingDecode() throws IOException {
+        return decoder.<List<User>>decode(new ByteArrayInputStream(response), "getAllUsers", userList).data();
+    }
+
+    @Benchmark
+    public List<User> mapTreeDecode() throws IOException {
+        Map<String, Map<String, Object>> body = objectMapper.readValue(response,
+                new TypeReference<Map<String, Map<String, Object>>>() {
+                });
+        return objectMapper.convertValue(body.get("data").get("getAllUsers"), userList);
+    }
+}
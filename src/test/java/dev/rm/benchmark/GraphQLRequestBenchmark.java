@@ -0,0 +1,102 @@
+package dev.rm.benchmark;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.rm.graphql.UpstreamDocument;
+import dev.rm.graphql.UpstreamDocuments;
+import dev.rm.service.UserGraphQLService;
+
+/**
+ * Builds and encodes the {@code updateUser} request body sent upstream.
+ * {@code variables} and {@code persistedQuery} build it the way
+ * {@code UpstreamGraphQLClient} does; {@code formattedQuery} is the old
+ * {@code String.format} construction kept as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphQLRequestBenchmark {
+
+    private ObjectMapper objectMapper;
+    private UpstreamDocument updateUser;
+    private UUID userId;
+    private Map<String, Object> updates;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        updateUser = new UpstreamDocuments().get("updateUser");
+        userId = UUID.fromString("6f1c2a8e-4b7d-4c11-9a51-2f0e8d3b7a10");
+        updates = Map.of("username", "ana", "email", "ana@example.com", "roleId", 2);
+    }
+
+    @Benchmark
+    public byte[] variables() throws IOException {
+        Map<String, Object> variables = UserGraphQLService.updateUserVariables(userId, updates);
+        return objectMapper.writeValueAsBytes(updateUser.requestBody(variables, true, false));
+    }
+
+    @Benchmark
+    public byte[] persistedQuery() throws IOException {
+        Map<String, Object> variables = UserGraphQLService.updateUserVariables(userId, updates);
+        return objectMapper.writeValueAsBytes(updateUser.requestBody(variables, false, true));
+    }
+
+    @Benchmark
+    public byte[] formattedQuery() throws IOException {
+        StringBuilder inputBuilder = new StringBuilder();
+        if (updates.containsKey("username")) {
+            inputBuilder.append(String.format("username: \"%s\"", updates.get("username")));
+        }
+        if (updates.containsKey("email")) {
+            if (inputBuilder.length() > 0)
+                inputBuilder.append("\n        ");
+            inputBuilder.append(String.format("email: \"%s\"", updates.get("email")));
+        }
+        if (updates.containsKey("password")) {
+            if (inputBuilder.length() > 0)
+                inputBuilder.append("\n        ");
+            inputBuilder.append(String.format("password: \"%s\"", updates.get("password")));
+        }
+        if (updates.containsKey("roleId")) {
+            if (inputBuilder.length() > 0)
+                inputBuilder.append("\n        ");
+            inputBuilder.append(String.format("roleId: %s", updates.get("roleId")));
+        }
+
+        String mutation = String.format("""
+                    mutation {
+                        updateUser(id: "%s", input: {
+                            %s
+                        }) {
+                            userId
+                            username
+                            email
+                            role {
+                                roleId
+                            }
+                        }
+                    }
+                """, userId, inputBuilder.toString());
+        return objectMapper.writeValueAsBytes(Map.of("query", mutation));
+    }
+}
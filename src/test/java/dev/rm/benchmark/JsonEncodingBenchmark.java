@@ -0,0 +1,86 @@
+package dev.rm.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import dev.rm.http.UserJson;
+import dev.rm.model.Role;
+import dev.rm.model.User;
+
+/**
+ * Jackson encoding of the user and role lists returned by
+ * {@code GET /api/users} and {@code GET /api/roles}, with and without the
+ * response view of users (no password, optional {@code ?fields=}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonEncodingBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int size;
+
+    private ObjectWriter userListWriter;
+    private ObjectWriter roleListWriter;
+    private ObjectWriter responseUserListWriter;
+    private ObjectWriter projectedUserListWriter;
+    private List<User> users;
+    private List<Role> roles;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        userListWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, User.class));
+        roleListWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, Role.class));
+        ObjectMapper responseMapper = UserJson.register(new ObjectMapper());
+        ObjectWriter responseWriter = responseMapper.writerFor(responseMapper.getTypeFactory()
+                .constructCollectionType(List.class, User.class));
+        responseUserListWriter = responseWriter;
+        projectedUserListWriter = responseWriter.with(UserJson.project(List.of(),
+                Set.of("userId", "username")).getFilters());
+        users = BenchmarkData.users(size);
+        roles = BenchmarkData.roles(size);
+    }
+
+    @Benchmark
+    public byte[] encodeUsers() throws IOException {
+        return userListWriter.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] encodeResponseUsers() throws IOException {
+        return responseUserListWriter.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] encodeProjectedUsers() throws IOException {
+        return projectedUserListWriter.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] encodeRoles() throws IOException {
+        return roleListWriter.writeValueAsBytes(roles);
+    }
+}
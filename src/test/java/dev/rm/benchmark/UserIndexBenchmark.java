@@ -0,0 +1,73 @@
+package dev.rm.benchmark;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.rm.cache.UserIndex;
+import dev.rm.model.User;
+
+/**
+ * {@link UserIndex} lookups against the client-side baseline of scanning the
+ * whole user list, for a prefix matching about a hundred users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserIndexBenchmark {
+
+    @Param({ "1000", "10000", "50000" })
+    private int size;
+
+    private List<User> users;
+    private UserIndex index;
+    private String prefix;
+
+    @Setup
+    public void setUp() {
+        users = BenchmarkData.users(size);
+        index = new UserIndex();
+        index.rebuild(users);
+        prefix = "user" + (size / 100);
+    }
+
+    @Benchmark
+    public List<User> indexedPrefix() {
+        return index.byUsernamePrefix(prefix, 50);
+    }
+
+    @Benchmark
+    public List<User> scannedPrefix() {
+        return users.stream()
+                .filter(user -> user.getUsername().toLowerCase(Locale.ROOT).startsWith(prefix))
+                .limit(50)
+                .toList();
+    }
+
+    @Benchmark
+    public List<User> indexedByRole() {
+        return index.byRole(3L);
+    }
+
+    @Benchmark
+    public List<User> scannedByRole() {
+        return users.stream()
+                .filter(user -> user.getRole().getRoleId() == 3L)
+                .toList();
+    }
+}
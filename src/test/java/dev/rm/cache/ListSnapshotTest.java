@@ -0,0 +1,152 @@
+package dev.rm.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+class ListSnapshotTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+
+    private final RequestCoalescer coalescer = new RequestCoalescer(new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicReference<Flux<Item>> upstream = new AtomicReference<>();
+
+    @Test
+    void writesDuringALoadAreReplayedOntoItsResult() {
+        ListSnapshot<Integer, Item> snapshot = snapshot(Duration.ofMinutes(5));
+        upstream.set(Flux.just(new Item(1, "a"), new Item(2, "b")));
+        snapshot.get().block(TIMEOUT);
+
+        Sinks.Many<Item> pending = Sinks.many().unicast().onBackpressureBuffer();
+        upstream.set(pending.asFlux());
+        snapshot.refresh();
+        snapshot.upsert(new Item(3, "c"));
+        snapshot.upsert(new Item(2, "b2"));
+        snapshot.remove(1);
+
+        // Read upstream before the writes above reached it
+        pending.tryEmitNext(new Item(1, "a"));
+        pending.tryEmitNext(new Item(2, "b"));
+        pending.tryEmitComplete();
+
+        assertThat(loads).hasValue(2);
+        assertThat(values(snapshot)).containsExactly(new Item(2, "b2"), new Item(3, "c"));
+    }
+
+    @Test
+    void writesBeforeALoadStartsAreLeftToUpstream() {
+        ListSnapshot<Integer, Item> snapshot = snapshot(Duration.ofMinutes(5));
+        upstream.set(Flux.just(new Item(1, "a")));
+        snapshot.get().block(TIMEOUT);
+        snapshot.upsert(new Item(2, "b"));
+        assertThat(values(snapshot)).containsExactly(new Item(1, "a"), new Item(2, "b"));
+
+        // Upstream no longer has 2, so the next load drops it
+        snapshot.refresh();
+
+        assertThat(values(snapshot)).containsExactly(new Item(1, "a"));
+    }
+
+    @Test
+    void staleSnapshotIsReloadedOnRead() {
+        ListSnapshot<Integer, Item> fresh = snapshot(Duration.ofMinutes(5));
+        upstream.set(Flux.just(new Item(1, "a")));
+        fresh.get().block(TIMEOUT);
+        fresh.get().block(TIMEOUT);
+        assertThat(loads).hasValue(1);
+        assertThat(fresh.isFresh()).isTrue();
+
+        loads.set(0);
+        ListSnapshot<Integer, Item> stale = snapshot(Duration.ZERO);
+        stale.get().block(TIMEOUT);
+        upstream.set(Flux.just(new Item(1, "a2")));
+        assertThat(stale.isFresh()).isFalse();
+        assertThat(stale.get().block(TIMEOUT).values()).containsExactly(new Item(1, "a2"));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void writesBeforeTheFirstLoadAreIgnored() {
+        ListSnapshot<Integer, Item> snapshot = snapshot(Duration.ofMinutes(5));
+        snapshot.remove(1);
+        snapshot.upsert(new Item(9, "z"));
+        snapshot.refresh();
+        assertThat(loads).hasValue(0);
+
+        upstream.set(Flux.just(new Item(1, "a")));
+
+        assertThat(values(snapshot)).containsExactly(new Item(1, "a"));
+    }
+
+    @Test
+    void invalidatedSnapshotIsReloadedOnReadButKeepsTakingWrites() {
+        ListSnapshot<Integer, Item> snapshot = snapshot(Duration.ofMinutes(5));
+        upstream.set(Flux.just(new Item(1, "a")));
+        NavigableMap<Integer, Item> view = snapshot.get().block(TIMEOUT);
+
+        snapshot.invalidate();
+        snapshot.upsert(new Item(2, "b"));
+
+        assertThat(snapshot.isFresh()).isFalse();
+        assertThat(view.keySet()).containsExactly(1, 2);
+        upstream.set(Flux.just(new Item(1, "a2"), new Item(2, "b")));
+        assertThat(values(snapshot)).containsExactly(new Item(1, "a2"), new Item(2, "b"));
+        assertThat(snapshot.isFresh()).isTrue();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadStartedBeforeAnInvalidationIsNotFresh() {
+        ListSnapshot<Integer, Item> snapshot = snapshot(Duration.ofMinutes(5));
+        upstream.set(Flux.just(new Item(1, "a")));
+        snapshot.get().block(TIMEOUT);
+
+        Sinks.Many<Item> pending = Sinks.many().unicast().onBackpressureBuffer();
+        upstream.set(pending.asFlux());
+        snapshot.refresh();
+        snapshot.invalidate();
+        pending.tryEmitNext(new Item(1, "a"));
+        pending.tryEmitComplete();
+
+        assertThat(snapshot.isFresh()).isFalse();
+        upstream.set(Flux.just(new Item(1, "a2")));
+        assertThat(values(snapshot)).containsExactly(new Item(1, "a2"));
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void itemsAreKeptInKeyOrderAndWritesUpdateTheReturnedView() {
+        ListSnapshot<Integer, Item> snapshot = snapshot(Duration.ofMinutes(5));
+        upstream.set(Flux.just(new Item(3, "c"), new Item(1, "a")));
+        NavigableMap<Integer, Item> view = snapshot.get().block(TIMEOUT);
+
+        snapshot.upsert(new Item(2, "b"));
+
+        assertThat(view.keySet()).containsExactly(1, 2, 3);
+    }
+
+    private ListSnapshot<Integer, Item> snapshot(Duration maxStaleness) {
+        return new ListSnapshot<>("items", () -> {
+            loads.incrementAndGet();
+            return upstream.get();
+        }, Item::id, maxStaleness, coalescer);
+    }
+
+    private static List<Item> values(ListSnapshot<Integer, Item> snapshot) {
+        return List.copyOf(snapshot.get().block(TIMEOUT).values());
+    }
+
+    private record Item(Integer id, String value) {
+    }
+}
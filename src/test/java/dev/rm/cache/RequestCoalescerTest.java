@@ -0,0 +1,58 @@
+package dev.rm.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry);
+
+    @Test
+    void concurrentCallersShareOneUpstreamSubscription() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Sinks.One<String> response = Sinks.one();
+        Mono<String> upstream = Mono.defer(() -> {
+            subscriptions.incrementAndGet();
+            return response.asMono();
+        });
+
+        List<String> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            coalescer.coalesce("getUser", "42", () -> upstream).subscribe(results::add);
+        }
+        assertThat(coalescer.inFlight()).isEqualTo(1);
+
+        response.tryEmitValue("user-42");
+
+        assertThat(subscriptions).hasValue(1);
+        assertThat(results).hasSize(10).containsOnly("user-42");
+        assertThat(coalescer.inFlight()).isZero();
+        assertThat(meterRegistry.get("bff.coalescer.requests").tag("result", "leader").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("bff.coalescer.requests").tag("result", "joined").counter().count())
+                .isEqualTo(9);
+    }
+
+    @Test
+    void releasedEntryLetsTheNextCallGoUpstream() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> upstream = Mono.fromSupplier(() -> "call-" + subscriptions.incrementAndGet());
+
+        assertThat(coalescer.coalesce("getUser", "42", () -> upstream).block(Duration.ofSeconds(1)))
+                .isEqualTo("call-1");
+        assertThat(coalescer.coalesce("getUser", "42", () -> upstream).block(Duration.ofSeconds(1)))
+                .isEqualTo("call-2");
+        assertThat(coalescer.inFlight()).isZero();
+    }
+}
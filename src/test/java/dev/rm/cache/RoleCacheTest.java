@@ -0,0 +1,112 @@
+package dev.rm.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import dev.rm.model.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class RoleCacheTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void listIsSortedByRoleIdAndFillsTheSingleRoleCache() {
+        RoleCache cache = cache(Duration.ofMinutes(10));
+
+        List<Role> roles = cache.getAll(() -> load(role(3L, "c"), role(1L, "a"), role(2L, "b")))
+                .collectList().block(TIMEOUT);
+
+        assertThat(roles).extracting(Role::getRoleId).containsExactly(1L, 2L, 3L);
+        assertThat(cache.get(2L, this::loadOne).block(TIMEOUT)).isEqualTo(role(2L, "b"));
+        assertThat(cache.stream(() -> load()).collectList().block(TIMEOUT)).isEqualTo(roles);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void putAndEvictInvalidateTheList() {
+        RoleCache cache = cache(Duration.ofMinutes(10));
+        cache.getAll(() -> load(role(1L, "a"))).blockLast(TIMEOUT);
+
+        cache.put(role(2L, "b"));
+        assertThat(cache.getAll(() -> load(role(1L, "a"), role(2L, "b"))).collectList().block(TIMEOUT))
+                .extracting(Role::getRoleId).containsExactly(1L, 2L);
+
+        cache.evict(1L);
+        assertThat(cache.getAll(() -> load(role(2L, "b"))).collectList().block(TIMEOUT))
+                .extracting(Role::getRoleId).containsExactly(2L);
+        assertThat(cache.get(1L, this::loadOne).block(TIMEOUT)).isEqualTo(role(1L, "loaded"));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void putReplacesTheCachedRole() {
+        RoleCache cache = cache(Duration.ofMinutes(10));
+        cache.get(1L, this::loadOne).block(TIMEOUT);
+
+        cache.put(role(1L, "renamed"));
+
+        assertThat(cache.get(1L, this::loadOne).block(TIMEOUT)).isEqualTo(role(1L, "renamed"));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws InterruptedException {
+        RoleCache cache = cache(Duration.ofMillis(20));
+        cache.get(1L, this::loadOne).block(TIMEOUT);
+        cache.getAll(() -> load(role(1L, "a"))).blockLast(TIMEOUT);
+        cache.get(1L, this::loadOne).block(TIMEOUT);
+        cache.getAll(() -> load(role(1L, "a"))).blockLast(TIMEOUT);
+        assertThat(loads).hasValue(2);
+
+        Thread.sleep(50);
+
+        cache.get(1L, this::loadOne).block(TIMEOUT);
+        cache.getAll(() -> load(role(1L, "a"))).blockLast(TIMEOUT);
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void emptyLoadsAreNotCached() {
+        RoleCache cache = cache(Duration.ofMinutes(10));
+
+        cache.get(1L, roleId -> {
+            loads.incrementAndGet();
+            return Mono.empty();
+        }).block(TIMEOUT);
+        cache.get(1L, this::loadOne).block(TIMEOUT);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private RoleCache cache(Duration ttl) {
+        return new RoleCache(1000, ttl, new SimpleMeterRegistry());
+    }
+
+    private Flux<Role> load(Role... roles) {
+        return Flux.defer(() -> {
+            loads.incrementAndGet();
+            return Flux.just(roles);
+        });
+    }
+
+    private Mono<Role> loadOne(Long roleId) {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return role(roleId, "loaded");
+        });
+    }
+
+    private static Role role(Long roleId, String name) {
+        return Role.builder().roleId(roleId).name(name).build();
+    }
+}
@@ -0,0 +1,70 @@
+package dev.rm.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import dev.rm.model.Role;
+import dev.rm.model.User;
+
+class UserIndexTest {
+
+    private final UserIndex index = new UserIndex();
+
+    @Test
+    void putOverAnExistingUserMovesItsEmailAndRole() {
+        User ana = user(1, "ana", "ana@example.com", 1L);
+        index.rebuild(List.of(ana, user(2, "bob", "bob@example.com", 1L)));
+
+        User renamed = user(1, "ana", "ana.new@example.com", 2L);
+        index.put(renamed);
+
+        assertThat(index.byEmail("ana@example.com")).isEmpty();
+        assertThat(index.byEmail("ANA.NEW@example.com")).contains(renamed);
+        assertThat(index.byRole(1L)).extracting(User::getUsername).containsExactly("bob");
+        assertThat(index.byRole(2L)).containsExactly(renamed);
+        assertThat(index.byId(renamed.getUserId())).contains(renamed);
+    }
+
+    @Test
+    void removeDropsTheUserFromEveryIndex() {
+        User ana = user(1, "ana", "ana@example.com", 1L);
+        index.rebuild(List.of(ana));
+
+        index.remove(ana.getUserId());
+
+        assertThat(index.byId(ana.getUserId())).isEmpty();
+        assertThat(index.byEmail("ana@example.com")).isEmpty();
+        assertThat(index.byRole(1L)).isEmpty();
+        assertThat(index.byUsernamePrefix("an", 10)).isEmpty();
+    }
+
+    @Test
+    void prefixSearchStopsAtTheFirstNameWithoutThePrefix() {
+        index.rebuild(List.of(
+                user(1, "ab", "1@example.com", 1L),
+                user(2, "Abc", "2@example.com", 1L),
+                user(3, "abz", "3@example.com", 1L),
+                user(4, "ac", "4@example.com", 1L),
+                user(5, "aa", "5@example.com", 1L)));
+
+        assertThat(index.byUsernamePrefix("AB", 10)).extracting(User::getUsername)
+                .containsExactly("ab", "Abc", "abz");
+        assertThat(index.byUsernamePrefix("ab", 2)).extracting(User::getUsername)
+                .containsExactly("ab", "Abc");
+        assertThat(index.byUsernamePrefix("abd", 10)).isEmpty();
+        assertThat(index.byUsernamePrefix("b", 10)).isEmpty();
+    }
+
+    private static User user(long id, String username, String email, Long roleId) {
+        return User.builder()
+                .userId(new UUID(0L, id))
+                .username(username)
+                .email(email)
+                .role(Role.builder().roleId(roleId).build())
+                .build();
+    }
+}
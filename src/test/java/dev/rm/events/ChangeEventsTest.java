@@ -0,0 +1,118 @@
+package dev.rm.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+
+import dev.rm.model.ChangeEvent;
+import dev.rm.model.ChangeEvent.Type;
+import dev.rm.model.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+class ChangeEventsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ChangeEvents changeEvents = new ChangeEvents(2, meterRegistry);
+
+    @Test
+    void slowSubscriberLosesItsOldestEventsOnly() {
+        SlowSubscriber slow = new SlowSubscriber();
+        List<Long> fast = new CopyOnWriteArrayList<>();
+        changeEvents.roles().subscribe(slow);
+        Disposable fastSubscription = changeEvents.roles().subscribe(event -> fast.add(Long.valueOf(event.getId())));
+
+        for (long roleId = 1; roleId <= 5; roleId++) {
+            changeEvents.roleUpdated(role(roleId));
+        }
+        slow.request(Long.MAX_VALUE);
+
+        assertThat(slow.roleIds).containsExactly(4L, 5L);
+        assertThat(fast).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(dropped("roles")).isEqualTo(3);
+        assertThat(dropped("users")).isZero();
+        slow.dispose();
+        fastSubscription.dispose();
+    }
+
+    @Test
+    void eventsWithoutSubscribersAreNotCountedAsDropped() {
+        changeEvents.roleDeleted(1L);
+        changeEvents.userDeleted(new UUID(0, 1));
+
+        assertThat(dropped("roles")).isZero();
+        assertThat(dropped("users")).isZero();
+    }
+
+    @Test
+    void activeSubscriptionsAreReportedPerTopic() {
+        Disposable first = changeEvents.users().subscribe();
+        Disposable second = changeEvents.users().subscribe();
+        Disposable third = changeEvents.roles().subscribe();
+        assertThat(active("users")).isEqualTo(2);
+        assertThat(active("roles")).isEqualTo(1);
+
+        first.dispose();
+        third.dispose();
+
+        assertThat(active("users")).isEqualTo(1);
+        assertThat(active("roles")).isZero();
+        second.dispose();
+    }
+
+    @Test
+    void concurrentWritesReachEverySubscriber() throws InterruptedException {
+        List<ChangeEvent<Role>> received = new CopyOnWriteArrayList<>();
+        ChangeEvents unbuffered = new ChangeEvents(10_000, meterRegistry);
+        Disposable subscription = unbuffered.roles().subscribe(received::add);
+
+        List<Thread> writers = List.of(1, 2, 3, 4).stream()
+                .map(writer -> Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        unbuffered.roleCreated(role(writer * 10_000L + i));
+                    }
+                }))
+                .toList();
+        for (Thread writer : writers) {
+            writer.join(Duration.ofSeconds(5));
+        }
+
+        assertThat(received).hasSize(4_000).allMatch(event -> event.getType() == Type.CREATED);
+        assertThat(dropped("roles")).isZero();
+        subscription.dispose();
+    }
+
+    private double dropped(String topic) {
+        return meterRegistry.get("bff.subscriptions.dropped").tag("topic", topic).counter().count();
+    }
+
+    private double active(String topic) {
+        return meterRegistry.get("bff.subscriptions.active").tag("topic", topic).gauge().value();
+    }
+
+    private static Role role(long roleId) {
+        return Role.builder().roleId(roleId).name("role-" + roleId).build();
+    }
+
+    // Requests nothing until told to
+    private static class SlowSubscriber extends BaseSubscriber<ChangeEvent<Role>> {
+
+        private final List<Long> roleIds = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(ChangeEvent<Role> event) {
+            roleIds.add(Long.valueOf(event.getId()));
+        }
+    }
+}
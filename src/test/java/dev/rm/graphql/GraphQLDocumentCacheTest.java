@@ -0,0 +1,119 @@
+package dev.rm.graphql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.schema.StaticDataFetcher;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GraphQLDocumentCacheTest {
+
+    private static final String QUERY = "{ hello }";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void documentsAreParsedOnceAndHitsCountTheSavedTime() {
+        GraphQL graphQL = graphQL(new GraphQLDocumentCache(100, true, meterRegistry));
+
+        assertThat(graphQL.execute(QUERY).<Map<String, Object>>getData()).containsEntry("hello", "world");
+        assertThat(graphQL.execute(QUERY).<Map<String, Object>>getData()).containsEntry("hello", "world");
+        assertThat(graphQL.execute(QUERY).<Map<String, Object>>getData()).containsEntry("hello", "world");
+
+        assertThat(parses()).isEqualTo(1);
+        assertThat(cacheCount("graphqlDocuments", "hit")).isEqualTo(2);
+        assertThat(cacheCount("graphqlDocuments", "miss")).isEqualTo(1);
+        assertThat(meterRegistry.get("bff.graphql.document.parse.saved").counter().count()).isPositive();
+    }
+
+    @Test
+    void invalidDocumentsAreNotKept() {
+        GraphQL graphQL = graphQL(new GraphQLDocumentCache(100, true, meterRegistry));
+
+        assertThat(graphQL.execute("{ goodbye }").getErrors()).isNotEmpty();
+        assertThat(graphQL.execute("{ goodbye }").getErrors()).isNotEmpty();
+
+        assertThat(parses()).isEqualTo(2);
+        assertThat(meterRegistry.get("bff.graphql.document.parse.saved").counter().count()).isZero();
+    }
+
+    @Test
+    void persistedQueryIsRegisteredAfterNotFoundAndThenServedByHash() {
+        GraphQL graphQL = graphQL(new GraphQLDocumentCache(100, true, meterRegistry));
+        String hash = sha256(QUERY);
+
+        ExecutionResult unknown = graphQL.execute(persisted(PersistedQuerySupport.PERSISTED_QUERY_MARKER, hash));
+        assertThat(unknown.getErrors()).extracting(GraphQLError::getMessage).containsExactly("PersistedQueryNotFound");
+
+        ExecutionResult registered = graphQL.execute(persisted(QUERY, hash));
+        assertThat(registered.getErrors()).isEmpty();
+        assertThat(registered.<Map<String, Object>>getData()).containsEntry("hello", "world");
+
+        ExecutionResult byHash = graphQL.execute(persisted(PersistedQuerySupport.PERSISTED_QUERY_MARKER, hash));
+        assertThat(byHash.getErrors()).isEmpty();
+        assertThat(byHash.<Map<String, Object>>getData()).containsEntry("hello", "world");
+
+        assertThat(parses()).isEqualTo(1);
+        assertThat(cacheCount("graphqlPersistedQueries", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    void persistedQueriesCanBeTurnedOff() {
+        GraphQL graphQL = graphQL(new GraphQLDocumentCache(100, false, meterRegistry));
+
+        ExecutionResult result = graphQL.execute(persisted(QUERY, "not-a-hash"));
+
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(cacheCount("graphqlDocuments", "miss")).isEqualTo(1);
+        assertThat(cacheCount("graphqlPersistedQueries", "miss")).isZero();
+    }
+
+    private double parses() {
+        return meterRegistry.get("bff.graphql.document.parse").timer().count();
+    }
+
+    private double cacheCount(String cache, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+
+    private static ExecutionInput persisted(String query, String hash) {
+        return ExecutionInput.newExecutionInput()
+                .query(query)
+                .extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)))
+                .build();
+    }
+
+    private static GraphQL graphQL(GraphQLDocumentCache documentCache) {
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type.dataFetcher("hello", new StaticDataFetcher("world")))
+                .build();
+        return GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(
+                        new SchemaParser().parse("type Query { hello: String }"), wiring))
+                .preparsedDocumentProvider(documentCache)
+                .build();
+    }
+
+    private static String sha256(String query) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
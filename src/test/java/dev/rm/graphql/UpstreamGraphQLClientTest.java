@@ -0,0 +1,124 @@
+package dev.rm.graphql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.rm.exception.GraphQLUpstreamException;
+import dev.rm.metrics.UpstreamMetrics;
+import dev.rm.model.User;
+import dev.rm.resilience.ResilienceProperties;
+import dev.rm.resilience.UpstreamResilience;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class UpstreamGraphQLClientTest {
+
+    private static final UUID ID = new UUID(0, 1);
+
+    private final List<String> requestBodies = new ArrayList<>();
+    private final List<String> responses = new ArrayList<>();
+
+    @Test
+    void persistedQueryNotFoundIsRetriedOnceWithTheFullDocument() throws IOException {
+        responses.add("""
+                {"errors":[{"message":"PersistedQueryNotFound"}]}""");
+        responses.add("""
+                {"data":{"getUser":{"userId":"%s","username":"alice"}}}""".formatted(ID));
+
+        User user = client(true).execute("/getUserFunctionGraphQL", "getUser", Map.of("id", ID.toString()),
+                User.class).block(Duration.ofSeconds(5));
+
+        assertThat(user.getUsername()).isEqualTo("alice");
+        assertThat(requestBodies).hasSize(2);
+        assertThat(requestBodies.get(0)).contains("sha256Hash").doesNotContain("\"query\"");
+        assertThat(requestBodies.get(1)).contains("sha256Hash", "\"query\"");
+    }
+
+    @Test
+    void nullRootFieldIsNotFound() throws IOException {
+        responses.add("{\"data\":{\"getUser\":null}}");
+
+        assertThatThrownBy(() -> client(false).execute("/getUserFunctionGraphQL", "getUser",
+                Map.of("id", ID.toString()), User.class).block(Duration.ofSeconds(5)))
+                .isInstanceOfSatisfying(GraphQLUpstreamException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        assertThat(requestBodies).hasSize(1);
+    }
+
+    @Test
+    void errorsAreReportedWithTheirMessagesAndNotRetried() throws IOException {
+        responses.add("""
+                {"errors":[{"message":"first"},{"message":"second"}],"data":null}""");
+
+        assertThatThrownBy(() -> client(false).execute("/getUserFunctionGraphQL", "getUser",
+                Map.of("id", ID.toString()), User.class).block(Duration.ofSeconds(5)))
+                .isInstanceOfSatisfying(GraphQLUpstreamException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY);
+                    assertThat(e.getErrors()).containsExactly("first", "second");
+                });
+        assertThat(requestBodies).hasSize(1);
+    }
+
+    private UpstreamGraphQLClient client(boolean persistedQueries) throws IOException {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requestBodies.add(body(request));
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(responses.remove(0))
+                            .build());
+                })
+                .build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UpstreamResilience resilience = new UpstreamResilience(new ResilienceProperties(),
+                CircuitBreakerRegistry.ofDefaults(), meterRegistry);
+        return new UpstreamGraphQLClient(webClient, new UpstreamDocuments(), resilience,
+                new UpstreamMetrics(meterRegistry), new ObjectMapper(), persistedQueries);
+    }
+
+    private static String body(ClientRequest request) {
+        MockClientHttpRequest http = new MockClientHttpRequest(request.method(), request.url());
+        request.body().insert(http, new BodyInserter.Context() {
+
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return ExchangeStrategies.withDefaults().messageWriters();
+            }
+
+            @Override
+            public Optional<ServerHttpRequest> serverRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Map<String, Object> hints() {
+                return Map.of();
+            }
+        }).block(Duration.ofSeconds(5));
+        return http.getBodyAsString().block(Duration.ofSeconds(5));
+    }
+}
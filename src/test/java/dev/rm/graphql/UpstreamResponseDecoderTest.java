@@ -0,0 +1,85 @@
+package dev.rm.graphql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.rm.graphql.UpstreamResponseDecoder.Response;
+import dev.rm.model.User;
+
+class UpstreamResponseDecoderTest {
+
+    private final UpstreamResponseDecoder decoder = new UpstreamResponseDecoder(new ObjectMapper());
+
+    @Test
+    void bindsTheRootFieldAndSkipsEverythingElse() throws IOException {
+        Response<User> response = decode("""
+                {"extensions":{"cost":3},"data":{"other":[1,2],"getUser":{"userId":"%s","username":"alice",
+                "unknown":true,"role":{"roleId":1,"name":"ADMIN"}}}}""".formatted(id(1)), "getUser",
+                decoder.typeOf(User.class));
+
+        assertThat(response.hasErrors()).isFalse();
+        assertThat(response.data().getUserId()).isEqualTo(id(1));
+        assertThat(response.data().getUsername()).isEqualTo("alice");
+        assertThat(response.data().getRole().getName()).isEqualTo("ADMIN");
+    }
+
+    @Test
+    void bindsListRootFields() throws IOException {
+        Response<List<User>> response = decode("""
+                {"data":{"getAllUsers":[{"userId":"%s"},{"userId":"%s"}]}}""".formatted(id(1), id(2)),
+                "getAllUsers", decoder.listOf(User.class));
+
+        assertThat(response.data()).extracting(User::getUserId).containsExactly(id(1), id(2));
+    }
+
+    @Test
+    void readsErrorsWithTheirCode() throws IOException {
+        Response<User> response = decode("""
+                {"errors":[{"message":"PersistedQueryNotFound","extensions":{"code":"PERSISTED_QUERY_NOT_FOUND"}},
+                {"message":"boom","path":["getUser"]}],"data":null}""", "getUser", decoder.typeOf(User.class));
+
+        assertThat(response.hasErrors()).isTrue();
+        assertThat(response.data()).isNull();
+        assertThat(response.errors()).extracting(UpstreamResponseDecoder.Error::message)
+                .containsExactly("PersistedQueryNotFound", "boom");
+        assertThat(response.errors()).extracting(UpstreamResponseDecoder.Error::code)
+                .containsExactly("PERSISTED_QUERY_NOT_FOUND", null);
+    }
+
+    @Test
+    void nullOrMissingRootFieldDecodesToNullData() throws IOException {
+        assertThat(decode("{\"data\":{\"getUser\":null}}", "getUser", decoder.typeOf(User.class)).data()).isNull();
+        assertThat(decode("{\"data\":{}}", "getUser", decoder.typeOf(User.class)).data()).isNull();
+        assertThat(decode("{}", "getUser", decoder.typeOf(User.class)).hasErrors()).isFalse();
+    }
+
+    @Test
+    void malformedInputFails() {
+        assertThatThrownBy(() -> decode("[]", "getUser", decoder.typeOf(User.class)))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode("<html>Bad gateway</html>", "getUser", decoder.typeOf(User.class)))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode("{\"data\":{\"getUser\":{\"userId\":", "getUser",
+                decoder.typeOf(User.class)))
+                .isInstanceOf(IOException.class);
+    }
+
+    private <T> Response<T> decode(String json, String rootField, JavaType type) throws IOException {
+        return decoder.decode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), rootField, type);
+    }
+
+    private static UUID id(int n) {
+        return new UUID(0, n);
+    }
+}
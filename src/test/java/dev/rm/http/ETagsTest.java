@@ -0,0 +1,56 @@
+package dev.rm.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+
+import dev.rm.model.Role;
+import dev.rm.model.User;
+
+class ETagsTest {
+
+    private static final UUID ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @Test
+    void tagFollowsTheFieldsOfTheContent() {
+        String tag = ETags.of(List.of(user("alice")), null);
+
+        assertThat(ETags.of(List.of(user("alice")), null)).isEqualTo(tag).startsWith("W/\"");
+        assertThat(ETags.of(List.of(user("alice2")), null)).isNotEqualTo(tag);
+        assertThat(ETags.of(List.of(user("alice"), user("bob")), null)).isNotEqualTo(tag);
+    }
+
+    @Test
+    void projectionIsPartOfTheTagButItsOrderIsNot() {
+        User user = user("alice");
+        Set<String> usernameEmail = new LinkedHashSet<>(List.of("username", "email"));
+        Set<String> emailUsername = new LinkedHashSet<>(List.of("email", "username"));
+
+        assertThat(ETags.of(user, usernameEmail)).isNotEqualTo(ETags.of(user, null))
+                .isNotEqualTo(ETags.of(user, Set.of("username")))
+                .isEqualTo(ETags.of(user, emailUsername));
+    }
+
+    @Test
+    void okCarriesTheTagAndCacheControl() {
+        Role role = new Role(1L, "ADMIN");
+
+        ResponseEntity<Role> response = ETags.ok(role, CacheControl.noCache());
+
+        assertThat(response.getHeaders().getETag()).isEqualTo(ETags.of(role, null));
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        assertThat(ETags.ok(role, null).getHeaders().getCacheControl()).isNull();
+    }
+
+    private static User user(String username) {
+        return User.builder().userId(ID).username(username).email(username + "@example.com")
+                .role(new Role(1L, "ADMIN")).build();
+    }
+}
@@ -0,0 +1,135 @@
+package dev.rm.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import dev.rm.model.Role;
+import dev.rm.model.User;
+import dev.rm.service.UserGraphQLService;
+import dev.rm.service.UserService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The password is write-only: accepted in REST and GraphQL request bodies,
+ * never written to a response, whichever fields are asked for.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UserJsonTest {
+
+    private static final String PASSWORD = "s3cret-password";
+    private static final UUID USER_ID = new UUID(0, 1);
+
+    @Autowired
+    private WebTestClient client;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private UserGraphQLService userGraphQLService;
+
+    @Test
+    void restResponsesNeverContainThePassword() {
+        when(userService.getUserById(USER_ID)).thenReturn(Mono.just(user()));
+        when(userService.getAllUsers()).thenReturn(Flux.just(user()));
+
+        assertThat(get("/api/users/" + USER_ID)).contains("\"username\":\"alice\"").doesNotContain("password")
+                .doesNotContain(PASSWORD);
+        assertThat(get("/api/users")).contains("\"email\":\"alice@example.com\"").doesNotContain("password")
+                .doesNotContain(PASSWORD);
+        assertThat(get("/api/users/" + USER_ID + "?fields=username,role")).contains("\"username\":\"alice\"")
+                .doesNotContain("email").doesNotContain(PASSWORD);
+    }
+
+    @Test
+    void restRequestBodiesStillAcceptThePassword() {
+        when(userService.createUser(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        String body = client.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", "alice", "email", "alice@example.com", "password", PASSWORD))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        ArgumentCaptor<User> created = ArgumentCaptor.forClass(User.class);
+        verify(userService).createUser(created.capture());
+        assertThat(created.getValue().getPassword()).isEqualTo(PASSWORD);
+        assertThat(body).contains("\"username\":\"alice\"").doesNotContain(PASSWORD);
+    }
+
+    @Test
+    void unknownOrUnreadableFieldsAreRejected() {
+        client.get().uri("/api/users/" + USER_ID + "?fields=username,nickname").exchange()
+                .expectStatus().isBadRequest();
+        client.get().uri("/api/users/" + USER_ID + "?fields=password").exchange()
+                .expectStatus().isBadRequest();
+        client.get().uri("/api/users?fields=password").exchange()
+                .expectStatus().isBadRequest();
+        client.get().uri("/api/users?limit=10&fields=password").exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void graphqlResponsesNeverContainThePassword() {
+        when(userGraphQLService.getUserById(USER_ID)).thenReturn(Mono.just(user()));
+
+        String result = graphql("{ getUser(id: \"" + USER_ID + "\") { userId username email role { name } } }");
+        assertThat(result).contains("\"username\":\"alice\"").doesNotContain(PASSWORD);
+
+        String selected = graphql("{ getUser(id: \"" + USER_ID + "\") { username password } }");
+        assertThat(selected).contains("FieldUndefined").doesNotContain(PASSWORD);
+    }
+
+    @Test
+    void graphqlInputsStillAcceptThePassword() {
+        when(userGraphQLService.createUser(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        String result = graphql("mutation { saveUser(input: {username: \"alice\", email: \"alice@example.com\", "
+                + "password: \"" + PASSWORD + "\"}) { username } }");
+
+        ArgumentCaptor<User> created = ArgumentCaptor.forClass(User.class);
+        verify(userGraphQLService).createUser(created.capture());
+        assertThat(created.getValue().getPassword()).isEqualTo(PASSWORD);
+        assertThat(result).contains("\"username\":\"alice\"").doesNotContain(PASSWORD);
+    }
+
+    private String get(String uri) {
+        return client.get().uri(uri).accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+    }
+
+    private String graphql(String query) {
+        return client.post().uri("/graphql")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("query", query))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+    }
+
+    private static User user() {
+        return User.builder()
+                .userId(USER_ID)
+                .username("alice")
+                .email("alice@example.com")
+                .password(PASSWORD)
+                .role(Role.builder().roleId(1L).name("admin").build())
+                .build();
+    }
+}
@@ -0,0 +1,277 @@
+package dev.rm.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the user and role Azure Functions. Every REST and
+ * GraphQL path the services call is answered from an in-memory data set,
+ * after a configurable latency and with a configurable share of 500s.
+ */
+public class AzureFunctionStub implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Duration latency;
+    private final Duration jitter;
+    private final double errorRate;
+    private final List<Map<String, Object>> users;
+    private final List<Map<String, Object>> roles;
+    private final Set<String> persistedQueries = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+    private final HttpServer server;
+
+    public AzureFunctionStub(int userCount, int roleCount, Duration latency, Duration jitter, double errorRate)
+            throws IOException {
+        this.latency = latency;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+        this.roles = IntStream.rangeClosed(1, roleCount)
+                .mapToObj(i -> role((long) i, "ROLE_" + i))
+                .toList();
+        this.users = IntStream.range(0, userCount)
+                .mapToObj(i -> user(new UUID(0L, i + 1L).toString(), "user" + i, "user" + i + "@example.com",
+                        (long) (i % roleCount) + 1))
+                .toList();
+
+        // Without TCP_NODELAY every response waits out the client's delayed ACK (~40ms) between its headers
+        // and body, which capped the stub far below the application it stands in for
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/api/", this::handle);
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+    }
+
+    public String userId(int index) {
+        return (String) users.get(index % users.size()).get("userId");
+    }
+
+    public long roleId(int index) {
+        return (Long) roles.get(index % roles.size()).get("roleId");
+    }
+
+    public Map<String, Long> calls() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        calls.forEach((function, count) -> snapshot.put(function, count.get()));
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String function = exchange.getRequestURI().getPath().substring("/api/".length());
+        calls.computeIfAbsent(function, f -> new AtomicLong()).incrementAndGet();
+        try (exchange) {
+            pause();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                send(exchange, 500, Map.of("error", "Injected failure"));
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            if (function.endsWith("GraphQL")) {
+                graphql(exchange, function);
+            } else {
+                rest(exchange, function, query);
+            }
+        }
+    }
+
+    private void rest(HttpExchange exchange, String function, Map<String, String> query) throws IOException {
+        switch (function) {
+            case "getAllUsersFunction" -> send(exchange, 200, query.containsKey("limit") ? page(users, query) : users);
+            case "getUserFunction" -> sendFound(exchange, find(users, "userId", query.get("userId")));
+            case "createUserFunction" -> send(exchange, 201, Map.of("user", withId(readBody(exchange), "userId",
+                    UUID.randomUUID().toString())));
+            case "createUsersFunction" -> send(exchange, 201, Map.of("users", readListBody(exchange).stream()
+                    .map(user -> withId(user, "userId", UUID.randomUUID().toString()))
+                    .toList()));
+            case "updateUserFunction" -> send(exchange, 200, withId(readBody(exchange), "userId", query.get("userId")));
+            case "deleteUserFunction", "deleteRoleFunction" -> send(exchange, 204, null);
+            case "getAllRolesFunction" -> send(exchange, 200, query.containsKey("limit") ? page(roles, query) : roles);
+            case "getRoleFunction" -> sendFound(exchange, find(roles, "roleId", query.get("roleId")));
+            case "createRoleFunction" -> send(exchange, 201, withId(readBody(exchange), "roleId", roles.size() + 1L));
+            case "updateRoleFunction" -> send(exchange, 200, withId(readBody(exchange), "roleId",
+                    Long.valueOf(query.get("roleId"))));
+            default -> send(exchange, 404, Map.of("error", "Unknown function " + function));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void graphql(HttpExchange exchange, String function) throws IOException {
+        Map<String, Object> request = readBody(exchange);
+        Map<String, Object> variables = (Map<String, Object>) request.getOrDefault("variables", Map.of());
+        Map<String, Object> extensions = (Map<String, Object>) request.getOrDefault("extensions", Map.of());
+        Map<String, Object> persistedQuery = (Map<String, Object>) extensions.get("persistedQuery");
+        if (persistedQuery != null) {
+            String hash = (String) persistedQuery.get("sha256Hash");
+            if (request.containsKey("query")) {
+                persistedQueries.add(hash);
+            } else if (!persistedQueries.contains(hash)) {
+                send(exchange, 200, Map.of("errors", List.of(Map.of("message", "PersistedQueryNotFound",
+                        "extensions", Map.of("code", "PERSISTED_QUERY_NOT_FOUND")))));
+                return;
+            }
+        }
+
+        Map<String, Object> input = (Map<String, Object>) variables.getOrDefault("input", Map.of());
+        Object id = variables.get("id");
+        Object data = switch (function) {
+            case "getAllUsersFunctionGraphQL" -> Map.of("getAllUsers", users);
+            case "getUserFunctionGraphQL" -> nullable("getUser", find(users, "userId", String.valueOf(id)));
+            case "createUserFunctionGraphQL" -> Map.of("saveUser", withId(input, "userId",
+                    UUID.randomUUID().toString()));
+            case "updateUserFunctionGraphQL" -> Map.of("updateUser", withId(input, "userId", id));
+            case "deleteUserFunctionGraphQL" -> Map.of("deleteUser", true);
+            case "getAllRolesFunctionGraphQL" -> Map.of("getAllRoles", roles);
+            case "getRoleFunctionGraphQL" -> nullable("getRole", find(roles, "roleId", String.valueOf(id)));
+            case "createRoleFunctionGraphQL" -> Map.of("saveRole", withId(input, "roleId", roles.size() + 1L));
+            case "updateRoleFunctionGraphQL" -> Map.of("updateRole", withId(input, "roleId", id));
+            case "deleteRoleFunctionGraphQL" -> Map.of("deleteRole", true);
+            default -> null;
+        };
+        if (data == null) {
+            send(exchange, 404, Map.of("error", "Unknown function " + function));
+            return;
+        }
+        send(exchange, 200, Map.of("data", data));
+    }
+
+    private void pause() {
+        long millis = latency.toMillis();
+        if (!jitter.isZero()) {
+            millis += ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1);
+        }
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Map<String, Object> page(List<Map<String, Object>> items, Map<String, String> query) {
+        int limit = Integer.parseInt(query.get("limit"));
+        int offset = query.containsKey("cursor") ? Integer.parseInt(query.get("cursor")) : 0;
+        int end = Math.min(items.size(), offset + limit);
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", items.subList(Math.min(offset, end), end));
+        page.put("nextCursor", end < items.size() ? String.valueOf(end) : null);
+        page.put("hasMore", end < items.size());
+        return page;
+    }
+
+    /** The item with the given id, or null if there is none. */
+    private static Map<String, Object> find(List<Map<String, Object>> items, String idField, String id) {
+        return items.stream()
+                .filter(item -> String.valueOf(item.get(idField)).equals(id))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static Map<String, Object> nullable(String field, Object value) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(field, value);
+        return data;
+    }
+
+    private static Map<String, Object> withId(Map<String, Object> body, String idField, Object id) {
+        Map<String, Object> copy = new HashMap<>(body);
+        copy.put(idField, id);
+        return copy;
+    }
+
+    private static Map<String, Object> role(Long roleId, String name) {
+        Map<String, Object> role = new LinkedHashMap<>();
+        role.put("roleId", roleId);
+        role.put("name", name);
+        return role;
+    }
+
+    private static Map<String, Object> user(String userId, String username, String email, Long roleId) {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("userId", userId);
+        user.put("username", username);
+        user.put("email", email);
+        user.put("password", "secret");
+        user.put("role", Map.of("roleId", roleId));
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readAllBytes();
+            return bytes.length == 0 ? new HashMap<>() : objectMapper.readValue(bytes, Map.class);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> readListBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            return objectMapper.readValue(body, List.class);
+        }
+    }
+
+    private void sendFound(HttpExchange exchange, Map<String, Object> item) throws IOException {
+        if (item == null) {
+            send(exchange, 404, Map.of("error", "Not found"));
+        } else {
+            send(exchange, 200, item);
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, Object body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+}
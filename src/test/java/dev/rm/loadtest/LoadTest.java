@@ -0,0 +1,291 @@
+package dev.rm.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.rm.App;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Starts the BFF against {@link AzureFunctionStub} and drives its REST and
+ * GraphQL endpoints at a fixed concurrency, then prints throughput and
+ * latency percentiles per scenario, with the peak {@code jvm.threads.live}
+ * during the run. Run through the {@code loadtest} Maven profile; settings
+ * are read from {@code loadtest.*} system properties and any program
+ * arguments are passed to the application.
+ */
+public final class LoadTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String USERS_WITH_ROLES = """
+            {"query":"{ getAllUsers { userId username email role { roleId name } } }"}""";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Devtools would restart main() in a new class loader and start a second stub
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+        int clients = Integer.getInteger("loadtest.clients", 8);
+        Duration warmup = duration("loadtest.warmup", "30s");
+        Duration duration = duration("loadtest.duration", "30s");
+        List<String> scenarioNames = Arrays.asList(System.getProperty("loadtest.scenarios",
+                "rest-users,rest-user,rest-roles,rest-role,rest-users-page,graphql-users,graphql-user,graphql-roles")
+                .split(","));
+
+        try (AzureFunctionStub stub = new AzureFunctionStub(
+                Integer.getInteger("loadtest.stub.users", 500),
+                Integer.getInteger("loadtest.stub.roles", 10),
+                duration("loadtest.stub.latency", "20ms"),
+                duration("loadtest.stub.jitter", "10ms"),
+                Double.parseDouble(System.getProperty("loadtest.stub.error-rate", "0")));
+                ConfigurableApplicationContext app = SpringApplication.run(App.class, appArgs(stub, args))) {
+
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            Gauge liveThreads = app.getBean(MeterRegistry.class).get("jvm.threads.live").gauge();
+            Map<String, Scenario> all = scenarios("http://127.0.0.1:" + port, stub);
+            List<Scenario> selected = scenarioNames.stream()
+                    .map(String::trim)
+                    .map(name -> {
+                        Scenario scenario = all.get(name);
+                        if (scenario == null) {
+                            throw new IllegalArgumentException("Unknown scenario " + name + ", expected one of "
+                                    + all.keySet());
+                        }
+                        return scenario;
+                    })
+                    .toList();
+
+            // One HttpClient funnels every connection through a single selector thread, which then limits
+            // the driver rather than the application. Fixed executors keep the driver's share of
+            // jvm.threads.live, which counts every thread in this JVM, at three threads per client.
+            List<HttpClient> pool = new ArrayList<>();
+            List<ExecutorService> executors = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                ExecutorService executor = Executors.newFixedThreadPool(2);
+                executors.add(executor);
+                pool.add(HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .executor(executor)
+                        .build());
+            }
+
+            System.out.printf(Locale.ROOT, "%nLoad test: concurrency=%d clients=%d warmup=%s duration=%s%n",
+                    concurrency, clients, warmup, duration);
+            try {
+                for (Scenario scenario : selected) {
+                    run(pool, scenario, concurrency, warmup, liveThreads);
+                    Result result = run(pool, scenario, concurrency, duration, liveThreads);
+                    result.print(scenario.name());
+                }
+            } finally {
+                pool.forEach(HttpClient::close);
+                executors.forEach(ExecutorService::shutdown);
+            }
+            System.out.println("\nUpstream calls: " + stub.calls());
+        }
+    }
+
+    private static Map<String, Scenario> scenarios(String base, AzureFunctionStub stub) {
+        Map<String, Scenario> scenarios = new LinkedHashMap<>();
+        Stream.of(
+                new Scenario("rest-users", false, i -> get(base + "/api/users")),
+                new Scenario("rest-user", false, i -> get(base + "/api/users/" + stub.userId(i))),
+                new Scenario("rest-users-page", false, i -> get(base + "/api/users?limit=50")),
+                new Scenario("rest-roles", false, i -> get(base + "/api/roles")),
+                new Scenario("rest-role", false, i -> get(base + "/api/roles/" + stub.roleId(i))),
+                new Scenario("rest-create-user", false, i -> post(base + "/api/users", """
+                        {"username":"load%d","email":"load%d@example.com","password":"secret","role":{"roleId":1}}"""
+                        .formatted(i, i))),
+                new Scenario("rest-delete-role", false, i -> HttpRequest.newBuilder(URI.create(base + "/api/roles/"
+                        + stub.roleId(i))).DELETE().build()),
+                new Scenario("graphql-users", true, i -> post(base + "/graphql", USERS_WITH_ROLES)),
+                new Scenario("graphql-user", true, i -> post(base + "/graphql", """
+                        {"query":"query($id: ID!) { getUser(id: $id) { userId username role { name } } }",\
+                        "variables":{"id":"%s"}}""".formatted(stub.userId(i)))),
+                new Scenario("graphql-roles", true, i -> post(base + "/graphql", """
+                        {"query":"{ getAllRoles { roleId name } }"}""")),
+                // The stub alone, as a ceiling for the scenarios above
+                new Scenario("stub-user", false, i -> get(stub.baseUrl() + "/getUserFunction?userId="
+                        + stub.userId(i))),
+                new Scenario("stub-graphql-users", true, i -> post(stub.baseUrl() + "/getAllUsersFunctionGraphQL",
+                        USERS_WITH_ROLES)))
+                .forEach(scenario -> scenarios.put(scenario.name(), scenario));
+        return scenarios;
+    }
+
+    private static Result run(List<HttpClient> clients, Scenario scenario, int concurrency, Duration duration,
+            Gauge liveThreads) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicInteger sequence = new AtomicInteger();
+        AtomicInteger peakThreads = new AtomicInteger();
+        List<Recorder> recorders = new ArrayList<>();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            workers.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    peakThreads.accumulateAndGet((int) liveThreads.value(), Math::max);
+                    Thread.sleep(100);
+                }
+                return null;
+            });
+            for (int w = 0; w < concurrency; w++) {
+                Recorder recorder = new Recorder();
+                recorders.add(recorder);
+                HttpClient client = clients.get(w % clients.size());
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = scenario.request().apply(sequence.getAndIncrement());
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = client.send(request,
+                                    HttpResponse.BodyHandlers.ofByteArray());
+                            long nanos = System.nanoTime() - start;
+                            recorder.record(nanos, succeeded(scenario, response));
+                        } catch (Exception e) {
+                            recorder.record(System.nanoTime() - start, false);
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return Result.of(recorders, duration, peakThreads.get());
+    }
+
+    /**
+     * A response below 400 succeeds. GraphQL reports failures in a 200 body,
+     * so for GraphQL scenarios an {@code errors} entry also counts as a failure.
+     */
+    private static boolean succeeded(Scenario scenario, HttpResponse<byte[]> response) throws IOException {
+        if (response.statusCode() >= 400) {
+            return false;
+        }
+        if (!scenario.graphql()) {
+            return true;
+        }
+        JsonNode body = OBJECT_MAPPER.readTree(response.body());
+        return body.path("errors").isEmpty() && body.hasNonNull("data");
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest post(String uri, String json) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static String[] appArgs(AzureFunctionStub stub, String[] args) {
+        String url = stub.baseUrl();
+        List<String> appArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework=WARN",
+                "--logging.level.org.hibernate=WARN",
+                "--logging.level.dev.rm=WARN"));
+        for (String function : List.of("user", "role")) {
+            String prefix = "--azure.function." + function;
+            appArgs.addAll(List.of(
+                    prefix + ".rest.prod.url=" + url,
+                    prefix + ".rest.prod.create=" + url,
+                    prefix + ".rest.prod.create-code=loadtest",
+                    prefix + ".rest.prod.get=" + url,
+                    prefix + ".rest.prod.update=" + url,
+                    prefix + ".rest.prod.delete=" + url,
+                    prefix + ".rest.dev.url=" + url,
+                    prefix + ".graphql.prod.url=" + url,
+                    prefix + ".graphql.dev.url=" + url));
+        }
+        appArgs.addAll(Arrays.asList(args));
+        return appArgs.toArray(String[]::new);
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+
+    private record Scenario(String name, boolean graphql, IntFunction<HttpRequest> request) {
+    }
+
+    /** Latencies recorded by a single worker, so recording needs no locking. */
+    private static final class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        void record(long nanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!success) {
+                errors++;
+            }
+        }
+    }
+
+    private record Result(long[] latencies, int errors, Duration duration, int threads) {
+
+        static Result of(List<Recorder> recorders, Duration duration, int threads) {
+            long[] all = recorders.stream()
+                    .flatMapToLong(recorder -> Arrays.stream(recorder.latencies, 0, recorder.count))
+                    .sorted()
+                    .toArray();
+            int errors = recorders.stream().mapToInt(recorder -> recorder.errors).sum();
+            return new Result(all, errors, duration, threads);
+        }
+
+        void print(String scenario) {
+            double seconds = duration.toNanos() / 1e9;
+            System.out.printf(Locale.ROOT,
+                    "%-18s requests=%-8d errors=%-6d throughput=%9.1f req/s  p50=%7.2fms  p99=%7.2fms  "
+                            + "p999=%7.2fms  max=%7.2fms  threads=%d%n",
+                    scenario, latencies.length, errors, latencies.length / seconds,
+                    percentile(0.50), percentile(0.99), percentile(0.999),
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6, threads);
+        }
+
+        private double percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
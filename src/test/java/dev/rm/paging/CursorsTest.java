@@ -0,0 +1,84 @@
+package dev.rm.paging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.junit.jupiter.api.Test;
+
+import dev.rm.exception.InvalidCursorException;
+import dev.rm.model.Connection;
+import dev.rm.model.CursorPage;
+
+class CursorsTest {
+
+    @Test
+    void insertBetweenTwoFetchesNeitherRepeatsNorSkipsItems() {
+        NavigableMap<Long, String> items = new ConcurrentSkipListMap<>();
+        for (long id = 10; id <= 50; id += 10) {
+            items.put(id, "item-" + id);
+        }
+
+        CursorPage<String> first = Cursors.page(items, null, 2, Long::valueOf);
+        assertThat(first.getItems()).containsExactly("item-10", "item-20");
+
+        // One item lands on the page already read, one on the next
+        items.put(5L, "item-5");
+        items.put(35L, "item-35");
+        items.remove(30L);
+
+        CursorPage<String> second = Cursors.page(items, first.getNextCursor(), 2, Long::valueOf);
+        assertThat(second.getItems()).containsExactly("item-35", "item-40");
+        assertThat(second.isHasMore()).isTrue();
+
+        CursorPage<String> third = Cursors.page(items, second.getNextCursor(), 2, Long::valueOf);
+        assertThat(third.getItems()).containsExactly("item-50");
+        assertThat(third.isHasMore()).isFalse();
+        assertThat(third.getNextCursor()).isNull();
+    }
+
+    @Test
+    void sortedListResumesAfterTheCursorKey() {
+        List<Long> ids = new ArrayList<>(List.of(10L, 20L, 30L, 40L));
+        CursorPage<Long> first = Cursors.page(ids, id -> id, null, 2, Long::valueOf);
+
+        ids.add(1, 15L);
+        ids.add(3, 25L);
+        CursorPage<Long> second = Cursors.page(ids, id -> id, first.getNextCursor(), 2, Long::valueOf);
+
+        assertThat(first.getItems()).containsExactly(10L, 20L);
+        assertThat(second.getItems()).containsExactly(25L, 30L);
+        assertThat(second.isHasMore()).isTrue();
+    }
+
+    @Test
+    void connectionEdgesCarryTheirOwnKeys() {
+        NavigableMap<Long, String> items = new ConcurrentSkipListMap<>();
+        items.put(1L, "a");
+        items.put(2L, "b");
+        items.put(3L, "c");
+
+        Connection<String> page = Cursors.connection(items, null, 2, Long::valueOf);
+        String afterFirst = page.getEdges().get(0).getCursor();
+        Connection<String> rest = Cursors.connection(items, afterFirst, 5, Long::valueOf);
+
+        assertThat(page.getPageInfo().isHasNextPage()).isTrue();
+        assertThat(page.getPageInfo().getEndCursor()).isEqualTo(page.getEdges().get(1).getCursor());
+        assertThat(rest.getEdges()).extracting(Connection.Edge::getNode).containsExactly("b", "c");
+        assertThat(rest.getPageInfo().isHasNextPage()).isFalse();
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        NavigableMap<Long, String> items = new ConcurrentSkipListMap<>();
+
+        assertThatThrownBy(() -> Cursors.page(items, "not base64!", 2, Long::valueOf))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> Cursors.page(items, Cursors.encode("abc"), 2, Long::valueOf))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
@@ -0,0 +1,152 @@
+package dev.rm.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import dev.rm.config.ResilienceConfig;
+import dev.rm.exception.GraphQLUpstreamException;
+import dev.rm.exception.UpstreamException;
+import dev.rm.exception.UpstreamUnavailableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class UpstreamResilienceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResilienceProperties properties = properties();
+    private final CircuitBreakerRegistry breakers = new ResilienceConfig().circuitBreakerRegistry(properties,
+            meterRegistry);
+    private final UpstreamResilience resilience = new UpstreamResilience(properties, breakers, meterRegistry);
+
+    @Test
+    void readsAreRetriedOnServerErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() < 3
+                ? Mono.error(new UpstreamException(HttpStatus.SERVICE_UNAVAILABLE, "busy"))
+                : Mono.just("ok"));
+
+        assertThat(resilience.read("getUser", "getUserFunction", call).block(TIMEOUT)).isEqualTo("ok");
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.get("bff.upstream.retries").tag("operation", "getUser").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void readsAreNotRetriedOnClientOrGraphQLErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> notFound = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new UpstreamException(HttpStatus.NOT_FOUND, "missing"));
+        });
+        Mono<String> graphqlErrors = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new GraphQLUpstreamException(HttpStatus.BAD_GATEWAY, "bad", List.of("bad")));
+        });
+
+        assertThatThrownBy(() -> resilience.read("getUser", "getUserFunction", notFound).block(TIMEOUT))
+                .isInstanceOf(UpstreamException.class);
+        assertThatThrownBy(() -> resilience.read("getUser", "getUserFunctionGraphQL", graphqlErrors).block(TIMEOUT))
+                .isInstanceOf(GraphQLUpstreamException.class);
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void writesAreNeverRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new UpstreamException(HttpStatus.SERVICE_UNAVAILABLE, "busy"));
+        });
+
+        assertThatThrownBy(() -> resilience.write("createUser", "createUserFunction", call).block(TIMEOUT))
+                .isInstanceOf(UpstreamException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void streamedReadsAreNotRetriedOnceItemsWereEmitted() {
+        AtomicInteger attempts = new AtomicInteger();
+        Flux<Integer> call = Flux.defer(() -> {
+            attempts.incrementAndGet();
+            return Flux.just(1, 2).concatWith(Mono.error(new UpstreamException(HttpStatus.BAD_GATEWAY, "cut")));
+        });
+
+        assertThatThrownBy(() -> resilience.readMany("getAllUsers", "getAllUsersFunction", call).collectList()
+                .block(TIMEOUT))
+                .isInstanceOf(UpstreamException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void operationTimeoutFires() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.never();
+        });
+
+        assertThatThrownBy(() -> resilience.write("getRole", "getRoleFunction", call).block(TIMEOUT))
+                .hasCauseInstanceOf(TimeoutException.class);
+        // Reads time out per attempt, and a timeout is retried
+        assertThatThrownBy(() -> resilience.read("getRole", "getRoleFunction", call).block(TIMEOUT))
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(attempts).hasValue(1 + 1 + properties.getRetry().getMaxAttempts());
+    }
+
+    @Test
+    void breakerOpensOnServerErrors() {
+        Mono<String> failing = Mono.error(new UpstreamException(HttpStatus.INTERNAL_SERVER_ERROR, "down"));
+
+        for (int i = 0; i < properties.getCircuitBreaker().getMinimumNumberOfCalls(); i++) {
+            assertThatThrownBy(() -> resilience.write("deleteRole", "deleteRoleFunction", failing).block(TIMEOUT))
+                    .isInstanceOf(UpstreamException.class);
+        }
+
+        assertThat(breakers.circuitBreaker("deleteRoleFunction").getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> resilience.write("deleteRole", "deleteRoleFunction", Mono.just("ok"))
+                .block(TIMEOUT))
+                .isInstanceOf(UpstreamUnavailableException.class);
+    }
+
+    @Test
+    void breakerStaysClosedOnClientErrorsAndNotFound() {
+        Mono<String> badRequest = Mono.error(new UpstreamException(HttpStatus.BAD_REQUEST, "invalid"));
+        Mono<String> notFound = Mono.error(GraphQLUpstreamException.notFound("getRole"));
+
+        for (int i = 0; i < properties.getCircuitBreaker().getMinimumNumberOfCalls(); i++) {
+            assertThatThrownBy(() -> resilience.write("updateRole", "updateRoleFunction", badRequest).block(TIMEOUT))
+                    .isInstanceOf(UpstreamException.class);
+            assertThatThrownBy(() -> resilience.read("getRole", "getRoleFunctionGraphQL", notFound).block(TIMEOUT))
+                    .isInstanceOf(GraphQLUpstreamException.class);
+        }
+
+        assertThat(breakers.circuitBreaker("updateRoleFunction").getState())
+                .isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breakers.circuitBreaker("getRoleFunctionGraphQL").getState())
+                .isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private static ResilienceProperties properties() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setTimeouts(Map.of("getRole", Duration.ofMillis(50)));
+        properties.getRetry().setMinBackoff(Duration.ofMillis(1));
+        properties.getRetry().setMaxBackoff(Duration.ofMillis(5));
+        properties.getCircuitBreaker().setSlidingWindowSize(4);
+        properties.getCircuitBreaker().setMinimumNumberOfCalls(4);
+        return properties;
+    }
+}
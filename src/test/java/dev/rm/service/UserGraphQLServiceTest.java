@@ -0,0 +1,108 @@
+package dev.rm.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import dev.rm.batch.BatchProperties;
+import dev.rm.cache.RequestCoalescer;
+import dev.rm.cache.UserSnapshot;
+import dev.rm.events.ChangeEvents;
+import dev.rm.exception.GraphQLUpstreamException;
+import dev.rm.graphql.UpstreamGraphQLClient;
+import dev.rm.model.ChangeEvent;
+import dev.rm.model.ChangeEvent.Type;
+import dev.rm.model.User;
+import dev.rm.paging.PagingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+class UserGraphQLServiceTest {
+
+    private final UpstreamGraphQLClient upstream = mock(UpstreamGraphQLClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ChangeEvents changeEvents = new ChangeEvents(16, meterRegistry);
+    private final UserGraphQLService service = service();
+
+    @Test
+    void getUsersLeavesOutUnknownIdsAndKeepsRequestOrder() {
+        UUID first = new UUID(0, 1);
+        UUID unknown = new UUID(0, 2);
+        UUID second = new UUID(0, 3);
+        answer(first, Mono.just(user(first)));
+        answer(unknown, Mono.error(GraphQLUpstreamException.notFound("getUser")));
+        answer(second, Mono.just(user(second)));
+
+        List<User> users = service.getUsers(List.of(second, unknown, first, unknown)).collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(users).extracting(User::getUserId).containsExactly(second, first);
+        verify(upstream, times(1)).execute("/getUserFunctionGraphQL", "getUser", Map.of("id", unknown.toString()),
+                User.class);
+    }
+
+    @Test
+    void getUsersFailsOnOtherUpstreamErrors() {
+        UUID known = new UUID(0, 1);
+        UUID failing = new UUID(0, 2);
+        answer(known, Mono.just(user(known)));
+        answer(failing, Mono.error(GraphQLUpstreamException.errors("getUser", List.of("boom"))));
+
+        assertThatThrownBy(() -> service.getUsers(List.of(known, failing)).collectList()
+                .block(Duration.ofSeconds(5)))
+                .isInstanceOf(GraphQLUpstreamException.class)
+                .hasMessageContaining("boom");
+    }
+
+    @Test
+    void userChangesCanFollowOneUser() {
+        UUID followed = new UUID(0, 1);
+        UUID other = new UUID(0, 2);
+        List<ChangeEvent<User>> all = new CopyOnWriteArrayList<>();
+        List<ChangeEvent<User>> one = new CopyOnWriteArrayList<>();
+        Disposable allSubscription = service.userChanges(null).subscribe(all::add);
+        Disposable oneSubscription = service.userChanges(followed).subscribe(one::add);
+
+        changeEvents.userUpdated(user(other));
+        changeEvents.userUpdated(user(followed));
+        changeEvents.userDeleted(other);
+        changeEvents.userDeleted(followed);
+
+        assertThat(all).extracting(ChangeEvent::getId).containsExactly(other.toString(), followed.toString(),
+                other.toString(), followed.toString());
+        assertThat(one).extracting(ChangeEvent::getType).containsExactly(Type.UPDATED, Type.DELETED);
+        assertThat(one).extracting(ChangeEvent::getId).containsOnly(followed.toString());
+        allSubscription.dispose();
+        oneSubscription.dispose();
+    }
+
+    private void answer(UUID userId, Mono<User> response) {
+        when(upstream.execute(eq("/getUserFunctionGraphQL"), eq("getUser"), eq(Map.of("id", userId.toString())),
+                eq(User.class))).thenReturn(response);
+    }
+
+    private UserGraphQLService service() {
+        RequestCoalescer requestCoalescer = new RequestCoalescer(meterRegistry);
+        // Never read, so every id goes upstream
+        UserSnapshot userSnapshot = new UserSnapshot(upstream, requestCoalescer, Duration.ofMinutes(5));
+        return new UserGraphQLService(upstream, requestCoalescer, new PagingProperties(), new BatchProperties(),
+                changeEvents, userSnapshot);
+    }
+
+    private static User user(UUID userId) {
+        return User.builder().userId(userId).username("user-" + userId).build();
+    }
+}